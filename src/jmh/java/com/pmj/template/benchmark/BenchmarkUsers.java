@@ -0,0 +1,34 @@
+package com.pmj.template.benchmark;
+
+import com.pmj.template.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Sample data shared by the benchmarks, shaped like a typical row of the users table.
+ */
+public final class BenchmarkUsers {
+
+    private BenchmarkUsers() {
+    }
+
+    public static User user(long id) {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 12, 0).plusMinutes(id);
+        return User.builder()
+                .id(id)
+                .username("user" + id)
+                .email("user" + id + "@example.com")
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z1FXsCkMa7DxSdcGPAJ9ZB2a")
+                .fullName("Benchmark User " + id)
+                .accountNonExpired(true)
+                .accountNonLocked(true)
+                .credentialsNonExpired(true)
+                .enabled(true)
+                .roles(new HashSet<>(Set.of("ROLE_USER", "ROLE_ADMIN")))
+                .createdAt(createdAt)
+                .updatedAt(createdAt.plusDays(1))
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.pmj.template.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.pmj.template.benchmark.BenchmarkUsers;
+import com.pmj.template.dto.response.UserResponse;
+import com.pmj.template.mapper.UserMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Response body serialization with an ObjectMapper configured like the application's, with and without Blackbird.
+ * The streaming variants write to a discarding stream, as the servlet container does, so only Jackson's own
+ * allocations are measured; the byte[] variants show the extra copy of buffering the whole body, and the
+ * cached-writer variants skip resolving the root type on each call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiResponseSerializationBenchmark {
+
+    @Param({"50"})
+    private int pageSize;
+
+    @Param({"false", "true"})
+    private boolean blackbird;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter userWriter;
+    private ObjectWriter pageWriter;
+    private ApiResponse<UserResponse> single;
+    private ApiResponse<List<UserResponse>> page;
+
+    @Setup
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (blackbird) {
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        objectMapper = builder.build();
+        userWriter = objectMapper.writerFor(new TypeReference<ApiResponse<UserResponse>>() {
+        });
+        pageWriter = objectMapper.writerFor(new TypeReference<ApiResponse<List<UserResponse>>>() {
+        });
+
+        UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+        single = ApiResponse.success("User retrieved successfully", userMapper.toResponse(BenchmarkUsers.user(42)));
+        page = ApiResponse.success("Users retrieved successfully", LongStream.rangeClosed(1, pageSize)
+                .mapToObj(BenchmarkUsers::user)
+                .map(userMapper::toResponse)
+                .toList());
+    }
+
+    @Benchmark
+    public void writeUser() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), single);
+    }
+
+    @Benchmark
+    public void writeUserPage() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), page);
+    }
+
+    @Benchmark
+    public void writeUserCachedWriter() throws IOException {
+        userWriter.writeValue(OutputStream.nullOutputStream(), single);
+    }
+
+    @Benchmark
+    public void writeUserPageCachedWriter() throws IOException {
+        pageWriter.writeValue(OutputStream.nullOutputStream(), page);
+    }
+
+    @Benchmark
+    public byte[] writeUserAsBytes() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(single);
+    }
+
+    @Benchmark
+    public byte[] writeUserPageAsBytes() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,60 @@
+package com.pmj.template.service;
+
+import com.pmj.template.benchmark.BenchmarkUsers;
+import com.pmj.template.dto.response.UserResponse;
+import com.pmj.template.entity.User;
+import com.pmj.template.mapper.UserMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to response mapping, done once per row for every user returned by the API or the export.
+ * {@code handWritten} is the builder code UserMapper replaced, kept as the baseline the generated mapper must match.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserMappingBenchmark {
+
+    private final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkUsers.user(42);
+    }
+
+    @Benchmark
+    public UserResponse handWritten() {
+        return UserResponse.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .fullName(user.getFullName())
+                .roles(user.getRoles())
+                .enabled(user.isEnabled())
+                .createdAt(user.getCreatedAt())
+                .updatedAt(user.getUpdatedAt())
+                .build();
+    }
+
+    @Benchmark
+    public UserResponse generated() {
+        return userMapper.toResponse(user);
+    }
+}
@@ -0,0 +1,127 @@
+package com.pmj.template.service;
+
+import com.pmj.template.TemplateApplication;
+import com.pmj.template.benchmark.BenchmarkUsers;
+import com.pmj.template.dto.response.UserResponse;
+import com.pmj.template.entity.User;
+import com.pmj.template.mapper.UserMapper;
+import com.pmj.template.repository.UserRepository;
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The user read endpoints against an in-memory H2 database: loading managed {@code User} entities and
+ * mapping them, selecting {@code UserSummary} records directly, and (by id) the second-level cached entity
+ * that principal loads use. Each operation runs in its own read-only transaction, so the persistence context
+ * starts empty every time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserReadPathBenchmark {
+
+    private static final int USERS = 1000;
+
+    // Only affects the page benchmarks
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private UserMapper userMapper;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+    private Long userId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(TemplateApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:read-path-benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        userRepository = context.getBean(UserRepository.class);
+        userMapper = context.getBean(UserMapper.class);
+        entityManager = context.getBean(EntityManager.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            User user = BenchmarkUsers.user(i);
+            user.setId(null);
+            users.add(user);
+        }
+        userId = userRepository.saveAll(users).get(USERS / 2).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserResponse entityById() {
+        return readOnly.execute(status -> userMapper.toResponse(entityManager.find(User.class, userId,
+                Map.of("jakarta.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS))));
+    }
+
+    @Benchmark
+    public UserResponse summaryById() {
+        return readOnly.execute(status ->
+                userMapper.toResponse(userRepository.findSummaryById(userId).orElseThrow()));
+    }
+
+    @Benchmark
+    public UserResponse cachedById() {
+        return readOnly.execute(status ->
+                userMapper.toResponse(entityManager.find(User.class, userId)));
+    }
+
+    @Benchmark
+    public List<UserResponse> entityPage() {
+        return readOnly.execute(status -> entityManager
+                .createQuery("select u from User u where u.id > :afterId order by u.id asc", User.class)
+                .setParameter("afterId", 0L)
+                .setMaxResults(pageSize)
+                .getResultStream()
+                .map(userMapper::toResponse)
+                .toList());
+    }
+
+    @Benchmark
+    public List<UserResponse> summaryPage() {
+        return readOnly.execute(status -> userRepository.findPageAfterId(0L, PageRequest.of(0, pageSize))
+                .stream()
+                .map(userMapper::toResponse)
+                .toList());
+    }
+}
@@ -1,26 +1,44 @@
 package com.pmj.template.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import com.pmj.template.security.UserPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.AuditorAware;
-import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 
+// JPA auditing is enabled on TemplateApplication, so JPA test slices get it too; auditorProvider is picked up by type
 @Configuration
-@EnableJpaAuditing(auditorAwareRef = "auditorProvider")
 public class ApplicationConfig {
 
+    // The ObjectMapper itself comes from Spring Boot so the spring.jackson.* settings apply; Module beans are
+    // registered on it. Blackbird replaces reflective getter/setter calls with generated lambdas.
     @Bean
-    public ObjectMapper objectMapper() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        return objectMapper;
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    // spring.jackson.date-format only covers java.util.Date; apply the same pattern to the LocalDateTime fields
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer localDateTimeFormat(
+            @Value("${spring.jackson.date-format:}") String dateFormat) {
+        return builder -> {
+            if (!dateFormat.isBlank()) {
+                DateTimeFormatter formatter = DateTimeFormatter.ofPattern(dateFormat);
+                builder.serializerByType(LocalDateTime.class, new LocalDateTimeSerializer(formatter));
+                builder.deserializerByType(LocalDateTime.class, new LocalDateTimeDeserializer(formatter));
+            }
+        };
     }
 
     @Bean
@@ -0,0 +1,42 @@
+package com.pmj.template.config;
+
+import com.pmj.template.dto.response.UserResponse;
+import com.pmj.template.repository.UserVersion;
+import com.pmj.template.util.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+
+// Cache manager and cache specs come from the spring.cache.* properties
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // Concurrent cache misses for the same user share one database load instead of stampeding it
+
+    @Bean
+    public SingleFlight<Long, UserDetails> principalLoads(
+            MeterRegistry meterRegistry,
+            @Value("${app.single-flight.timeout:5s}") Duration timeout) {
+        return new SingleFlight<>("principal", timeout, meterRegistry);
+    }
+
+    @Bean
+    public SingleFlight<Long, UserResponse> userLoads(
+            MeterRegistry meterRegistry,
+            @Value("${app.single-flight.timeout:5s}") Duration timeout) {
+        return new SingleFlight<>("user", timeout, meterRegistry);
+    }
+
+    @Bean
+    public SingleFlight<Long, UserVersion> userVersionLoads(
+            MeterRegistry meterRegistry,
+            @Value("${app.single-flight.timeout:5s}") Duration timeout) {
+        return new SingleFlight<>("user-version", timeout, meterRegistry);
+    }
+}
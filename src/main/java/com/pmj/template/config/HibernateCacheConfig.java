@@ -0,0 +1,63 @@
+package com.pmj.template.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.pmj.template.entity.User;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate second-level cache region for {@link User} entities loaded by id, on Caffeine through JCache.
+ * Entries expire after a fixed time so that changes made by other instances are picked up, as with the
+ * spring.cache.* caches. Hit and miss counts and sizes are published as cache.gets and cache.size tagged
+ * cacheManager=hibernate.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    private static final List<String> REGIONS = List.of(User.CACHE_REGION);
+
+    @Bean
+    public CacheManager hibernateCacheManager(
+            @Value("${app.jpa.second-level-cache.maximum-size:10000}") long maximumSize,
+            @Value("${app.jpa.second-level-cache.expire-after-write:600s}") Duration expireAfterWrite) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager();
+
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+        configuration.setNativeStatisticsEnabled(true);
+        for (String region : REGIONS) {
+            // The provider's cache manager is shared by every application context in the JVM, e.g. in tests
+            if (cacheManager.getCache(region) == null) {
+                cacheManager.createCache(region, configuration);
+            }
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManager(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager hibernateCacheManager) {
+        return meterRegistry -> REGIONS.forEach(region -> CaffeineCacheMetrics.monitor(meterRegistry,
+                hibernateCacheManager.getCache(region).unwrap(com.github.benmanes.caffeine.cache.Cache.class),
+                region, "cacheManager", "hibernate"));
+    }
+}
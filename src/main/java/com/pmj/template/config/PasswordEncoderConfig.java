@@ -0,0 +1,28 @@
+package com.pmj.template.config;
+
+import com.pmj.template.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+@Configuration
+public class PasswordEncoderConfig {
+
+    // Declared as the concrete type so the bulk import can queue hashes on the same pool
+    @Bean
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${app.security.password-hashing.strength:10}") int strength,
+            @Value("${app.security.password-hashing.threads:0}") int threads,
+            @Value("${app.security.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${app.security.password-hashing.timeout:5s}") Duration timeout,
+            MeterRegistry meterRegistry) {
+        // 0 means one hashing thread per available CPU
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), poolSize, queueCapacity,
+                timeout, meterRegistry);
+    }
+}
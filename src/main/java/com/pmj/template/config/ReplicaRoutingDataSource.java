@@ -0,0 +1,247 @@
+package com.pmj.template.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out replica connections to read-only transactions and primary connections to everything else.
+ * The decision is made when a connection is requested, so this data source must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: transaction managers ask for the
+ * connection before the transaction is marked read-only.
+ * <p>
+ * A replica that fails to hand out a connection is skipped until the retry interval has passed, and reads fall back
+ * to the next replica or the primary. After a read-write transaction commits, the same authenticated user's reads
+ * stay on the primary for the read-your-writes window, so they do not miss their own change on a lagging replica.
+ * The replica pools belong to this data source and are closed with it; the primary is not.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public enum Balancing {
+        ROUND_ROBIN,
+        LEAST_CONNECTIONS
+    }
+
+    // Why a connection came from the primary
+    enum PrimaryReason {
+        READ_WRITE("read-write"),
+        READ_YOUR_WRITES("read-your-writes"),
+        NO_REPLICA("no-replica");
+
+        private final String tag;
+
+        PrimaryReason(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Balancing balancing;
+    private final long retryIntervalNanos;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    // Users whose read-write transaction committed within the window; null when the window is disabled
+    private final Cache<String, Boolean> recentWriters;
+
+    private final Map<PrimaryReason, Counter> primaryConnections = new EnumMap<>(PrimaryReason.class);
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Balancing balancing,
+                                    Duration retryInterval, Duration readYourWritesWindow,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.balancing = balancing;
+        this.retryIntervalNanos = retryInterval.toNanos();
+        this.recentWriters = readYourWritesWindow.isZero() || readYourWritesWindow.isNegative()
+                ? null
+                : Caffeine.newBuilder().expireAfterWrite(readYourWritesWindow).build();
+
+        List<Replica> replicaList = new ArrayList<>(replicas.size());
+        replicas.forEach((name, dataSource) -> replicaList.add(new Replica(name, dataSource, meterRegistry)));
+        this.replicas = List.copyOf(replicaList);
+
+        for (PrimaryReason reason : PrimaryReason.values()) {
+            primaryConnections.put(reason, Counter.builder("datasource.routing.connections")
+                    .description("Connections handed out by the read-replica router")
+                    .tag("target", "primary")
+                    .tag("reason", reason.tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriter();
+            return fromPrimary(source, PrimaryReason.READ_WRITE);
+        }
+
+        String user = currentUser();
+        if (recentWriters != null && user != null && recentWriters.getIfPresent(user) != null) {
+            return fromPrimary(source, PrimaryReason.READ_YOUR_WRITES);
+        }
+
+        long now = System.nanoTime();
+        for (Replica replica : candidates(now)) {
+            try {
+                Connection connection = source.get(replica.dataSource);
+                replica.markUp();
+                return connection;
+            } catch (SQLException ex) {
+                replica.markDown(now + retryIntervalNanos);
+                log.warn("Read replica {} is unavailable, skipping it for {} ms: {}", replica.name,
+                        retryIntervalNanos / 1_000_000, ex.getMessage());
+            }
+        }
+        return fromPrimary(source, PrimaryReason.NO_REPLICA);
+    }
+
+    private Connection fromPrimary(ConnectionSource source, PrimaryReason reason) throws SQLException {
+        Connection connection = source.get(primary);
+        primaryConnections.get(reason).increment();
+        return connection;
+    }
+
+    // Available replicas in round-robin order; least-connections then prefers the least busy, keeping that order on ties
+    private List<Replica> candidates(long now) {
+        int size = replicas.size();
+        List<Replica> candidates = new ArrayList<>(size);
+        int start = size == 0 ? 0 : Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.isAvailable(now)) {
+                candidates.add(replica);
+            }
+        }
+        if (balancing == Balancing.LEAST_CONNECTIONS && candidates.size() > 1) {
+            candidates.sort(Comparator.comparingInt(Replica::activeConnections));
+        }
+        return candidates;
+    }
+
+    private void rememberWriter() {
+        if (recentWriters == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String user = currentUser();
+        if (user == null) {
+            return;
+        }
+        // The window starts at commit; a rolled-back transaction changed nothing worth reading back
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(user, Boolean.TRUE);
+            }
+        });
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    @Override
+    public void destroy() {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception ex) {
+                    log.warn("Could not close read replica {}", replica.name, ex);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final Counter connections;
+        private final Counter failures;
+
+        private volatile boolean down;
+        private volatile long retryAtNanos;
+
+        private Replica(String name, DataSource dataSource, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.connections = Counter.builder("datasource.routing.connections")
+                    .description("Connections handed out by the read-replica router")
+                    .tag("target", name)
+                    .tag("reason", "read-only")
+                    .register(meterRegistry);
+            this.failures = Counter.builder("datasource.routing.replica.failures")
+                    .description("Failed attempts to get a connection from a read replica")
+                    .tag("target", name)
+                    .register(meterRegistry);
+        }
+
+        private boolean isAvailable(long now) {
+            return !down || now - retryAtNanos >= 0;
+        }
+
+        private void markUp() {
+            down = false;
+            connections.increment();
+        }
+
+        private void markDown(long retryAt) {
+            retryAtNanos = retryAt;
+            down = true;
+            failures.increment();
+        }
+
+        // Only Hikari pools report their load; other data sources all count as idle
+        private int activeConnections() {
+            if (dataSource instanceof HikariDataSource hikari) {
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                return pool == null ? 0 : pool.getActiveConnections();
+            }
+            return 0;
+        }
+    }
+}
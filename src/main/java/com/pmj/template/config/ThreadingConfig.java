@@ -0,0 +1,17 @@
+package com.pmj.template.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+@Configuration
+public class ThreadingConfig {
+
+    // Applied by Spring Boot to the application task executor (platform or virtual threads), so async work such as
+    // streaming responses sees the caller's SecurityContext, e.g. in ApplicationConfig.auditorProvider
+    @Bean
+    public TaskDecorator securityContextTaskDecorator() {
+        return runnable -> DelegatingSecurityContextRunnable.create(runnable, null);
+    }
+}
@@ -1,31 +1,41 @@
 package com.pmj.template.controller;
 
 import com.pmj.template.dto.request.LoginRequest;
+import com.pmj.template.dto.request.RevokeTokenRequest;
 import com.pmj.template.dto.request.SignupRequest;
+import com.pmj.template.dto.response.AvailabilityResponse;
 import com.pmj.template.dto.response.JwtAuthResponse;
 import com.pmj.template.dto.response.UserResponse;
-import com.pmj.template.entity.User;
-import com.pmj.template.repository.UserRepository;
+import com.pmj.template.entity.Role;
+import com.pmj.template.exception.BadRequestException;
 import com.pmj.template.security.JwtTokenProvider;
+import com.pmj.template.security.TokenDenylist;
+import com.pmj.template.security.UserPrincipal;
+import com.pmj.template.service.AvailabilityService;
+import com.pmj.template.service.LoginActivityRecorder;
 import com.pmj.template.service.UserService;
+import io.jsonwebtoken.Claims;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.apache.coyote.BadRequestException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
-import java.util.HashSet;
-import java.util.Set;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -33,10 +43,11 @@ import java.util.Set;
 public class AuthController {
 
     private final AuthenticationManager authenticationManager;
-    private final UserRepository userRepository;
     private final UserService userService;
-    private final PasswordEncoder passwordEncoder;
+    private final AvailabilityService availabilityService;
+    private final LoginActivityRecorder loginActivityRecorder;
     private final JwtTokenProvider tokenProvider;
+    private final TokenDenylist tokenDenylist;
 
     @PostMapping("/login")
     public ResponseEntity<ApiResponse<JwtAuthResponse>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
@@ -49,54 +60,69 @@ public class AuthController {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = tokenProvider.generateToken(authentication);
+        loginActivityRecorder.recordLogin(((UserPrincipal) authentication.getPrincipal()).getId());
 
         return ResponseEntity.ok(ApiResponse.success("Login successful", new JwtAuthResponse(jwt)));
     }
 
-    @PostMapping("/signup")
-    public ResponseEntity<ApiResponse<UserResponse>> registerUser(@Valid @RequestBody SignupRequest signupRequest) {
-        if (userService.existsByUsername(signupRequest.getUsername())) {
-            throw new BadRequestException("Username is already taken!");
-        }
+    // Requires authentication (SecurityConfig), so the bearer token is known to be valid and not yet revoked
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<Void>> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        Claims claims = tokenProvider.parseToken(JwtTokenProvider.resolveBearerToken(authorization))
+                .orElseThrow(() -> new BadRequestException("A valid bearer token is required"));
+        revoke(claims);
+
+        SecurityContextHolder.clearContext();
+        return ResponseEntity.ok(ApiResponse.success("Logged out successfully", null));
+    }
 
-        if (userService.existsByEmail(signupRequest.getEmail())) {
-            throw new BadRequestException("Email is already in use!");
+    // Revokes any unexpired token of the current user, e.g. one left on another device; admins may revoke anyone's
+    @PostMapping("/revoke")
+    public ResponseEntity<ApiResponse<Void>> revokeToken(@AuthenticationPrincipal UserPrincipal currentUser,
+                                                         @Valid @RequestBody RevokeTokenRequest revokeRequest) {
+        Claims claims = tokenProvider.parseToken(revokeRequest.getToken())
+                .orElseThrow(() -> new BadRequestException("Token is invalid or has already expired"));
+        boolean isAdmin = currentUser.getAuthorities().stream()
+                .anyMatch(authority -> Role.ADMIN.authority().equals(authority.getAuthority()));
+        if (!isAdmin && !currentUser.getId().toString().equals(claims.getSubject())) {
+            throw new AccessDeniedException("Only the token's owner or an admin can revoke it");
         }
+        revoke(claims);
 
-        // Create user's account
-        Set<String> roles = new HashSet<>();
-        roles.add("ROLE_USER");
-
-        User user = User.builder()
-                .username(signupRequest.getUsername())
-                .email(signupRequest.getEmail())
-                .password(passwordEncoder.encode(signupRequest.getPassword()))
-                .fullName(signupRequest.getFullName())
-                .roles(roles)
-                .accountNonExpired(true)
-                .accountNonLocked(true)
-                .credentialsNonExpired(true)
-                .enabled(true)
-                .build();
+        return ResponseEntity.ok(ApiResponse.success("Token revoked successfully", null));
+    }
 
-        User savedUser = userRepository.save(user);
-
-        UserResponse userResponse = UserResponse.builder()
-                .id(savedUser.getId())
-                .username(savedUser.getUsername())
-                .email(savedUser.getEmail())
-                .fullName(savedUser.getFullName())
-                .roles(savedUser.getRoles())
-                .enabled(savedUser.isEnabled())
-                .createdAt(savedUser.getCreatedAt())
-                .updatedAt(savedUser.getUpdatedAt())
-                .build();
+    private void revoke(Claims claims) {
+        if (!tokenDenylist.revoke(claims)) {
+            throw new BadRequestException("Token was issued without an id and cannot be revoked; it expires on its own");
+        }
+    }
+
+    @PostMapping("/signup")
+    public ResponseEntity<ApiResponse<UserResponse>> registerUser(@Valid @RequestBody SignupRequest signupRequest) {
+        UserResponse userResponse = userService.registerUser(signupRequest);
 
         URI location = ServletUriComponentsBuilder
                 .fromCurrentContextPath().path("/api/users/{username}")
-                .buildAndExpand(savedUser.getUsername()).toUri();
+                .buildAndExpand(userResponse.getUsername()).toUri();
 
         return ResponseEntity.created(location)
                 .body(ApiResponse.success("User registered successfully", userResponse));
     }
-}
\ No newline at end of file
+
+    @GetMapping("/availability")
+    public ResponseEntity<ApiResponse<AvailabilityResponse>> checkAvailability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email) {
+        if (!StringUtils.hasText(username) && !StringUtils.hasText(email)) {
+            throw new BadRequestException("Provide a username or an email to check");
+        }
+
+        AvailabilityResponse availability = AvailabilityResponse.builder()
+                .usernameAvailable(StringUtils.hasText(username) ? availabilityService.isUsernameAvailable(username) : null)
+                .emailAvailable(StringUtils.hasText(email) ? availabilityService.isEmailAvailable(email) : null)
+                .build();
+
+        return ResponseEntity.ok(ApiResponse.success("Availability checked", availability));
+    }
+}
@@ -2,23 +2,43 @@ package com.pmj.template.controller;
 
 import com.pmj.template.dto.UserDto;
 import com.pmj.template.dto.request.UserRequest;
+import com.pmj.template.dto.request.UserSortField;
+import com.pmj.template.dto.response.BulkImportResponse;
+import com.pmj.template.dto.response.CursorPage;
 import com.pmj.template.dto.response.UserResponse;
+import com.pmj.template.repository.UserVersion;
+import com.pmj.template.service.UserExportService;
+import com.pmj.template.service.UserImportService;
 import com.pmj.template.service.UserService;
+import com.pmj.template.util.AppConstants;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
 public class UserController {
 
+    // Profiles are private and change at any time, so clients keep a copy but revalidate it on every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final UserService userService;
+    private final UserExportService userExportService;
+    private final UserImportService userImportService;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -28,27 +48,63 @@ public class UserController {
                 .body(ApiResponse.success("User created successfully", createdUser));
     }
 
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<BulkImportResponse>> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+        UserImportService.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? UserImportService.Format.NDJSON
+                : UserImportService.Format.CSV;
+        BulkImportResponse result = userImportService.importUsers(body, format);
+        return ResponseEntity.ok(ApiResponse.success("Users imported", result));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or @userSecurity.hasUserId(authentication, #id)")
-    public ResponseEntity<ApiResponse<UserResponse>> getUserById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<UserResponse>> getUserById(@PathVariable Long id, WebRequest request) {
+        if (isNotModified(request, userService.getUserVersionById(id))) {
+            return null;
+        }
         UserResponse user = userService.getUserById(id);
-        return ResponseEntity.ok(ApiResponse.success("User retrieved successfully", user));
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .body(ApiResponse.success("User retrieved successfully", user));
     }
 
     @GetMapping("/username/{username}")
     @PreAuthorize("hasRole('ADMIN') or @userSecurity.hasUsername(authentication, #username)")
-    public ResponseEntity<ApiResponse<UserResponse>> getUserByUsername(@PathVariable String username) {
+    public ResponseEntity<ApiResponse<UserResponse>> getUserByUsername(@PathVariable String username,
+                                                                       WebRequest request) {
+        if (isNotModified(request, userService.getUserVersionByUsername(username))) {
+            return null;
+        }
         UserResponse user = userService.getUserByUsername(username);
-        return ResponseEntity.ok(ApiResponse.success("User retrieved successfully", user));
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .body(ApiResponse.success("User retrieved successfully", user));
     }
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<List<UserResponse>>> getAllUsers() {
-        List<UserResponse> users = userService.getAllUsers();
+    public ResponseEntity<ApiResponse<CursorPage<UserResponse>>> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + AppConstants.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(defaultValue = "id") String sort) {
+        CursorPage<UserResponse> users = userService.getAllUsers(cursor, size, UserSortField.fromParam(sort));
         return ResponseEntity.ok(ApiResponse.success("Users retrieved successfully", users));
     }
 
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        // Rows are written to the response as they are read, on an async request thread
+        StreamingResponseBody body = userExportService::exportUsers;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or @userSecurity.hasUserId(authentication, #id)")
     public ResponseEntity<ApiResponse<UserResponse>> updateUser(
@@ -64,4 +120,24 @@ public class UserController {
         userService.deleteUser(id);
         return ResponseEntity.ok(ApiResponse.success("User deleted successfully", null));
     }
-}
\ No newline at end of file
+
+    /**
+     * Compares If-None-Match / If-Modified-Since with the user's current version, which is read without
+     * loading the user. Also sets the ETag and Last-Modified headers; on a match the response is a bodiless 304.
+     * Every change to a user moves updatedAt or lastLoginAt, so together with the id they identify the
+     * representation exactly.
+     */
+    private static boolean isNotModified(WebRequest request, UserVersion version) {
+        if (version.updatedAt() == null) {
+            return false;
+        }
+        long updatedAt = epochMillis(version.updatedAt());
+        long lastLoginAt = version.lastLoginAt() == null ? 0 : epochMillis(version.lastLoginAt());
+        String eTag = "\"" + version.id() + "-" + Long.toHexString(updatedAt) + "-" + Long.toHexString(lastLoginAt) + "\"";
+        return request.checkNotModified(eTag, Math.max(updatedAt, lastLoginAt));
+    }
+
+    private static long epochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
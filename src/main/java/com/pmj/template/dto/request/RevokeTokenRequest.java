@@ -0,0 +1,17 @@
+package com.pmj.template.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokeTokenRequest {
+
+    @NotBlank(message = "Token cannot be blank")
+    private String token;
+}
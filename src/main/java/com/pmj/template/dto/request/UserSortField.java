@@ -0,0 +1,28 @@
+package com.pmj.template.dto.request;
+
+import com.pmj.template.exception.BadRequestException;
+
+// Keys the user listing can be paged by; each one is backed by an index
+public enum UserSortField {
+    ID("id"),
+    CREATED_AT("createdAt");
+
+    private final String param;
+
+    UserSortField(String param) {
+        this.param = param;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public static UserSortField fromParam(String param) {
+        for (UserSortField field : values()) {
+            if (field.param.equalsIgnoreCase(param) || field.name().equalsIgnoreCase(param)) {
+                return field;
+            }
+        }
+        throw new BadRequestException("Unsupported sort field: " + param);
+    }
+}
@@ -0,0 +1,34 @@
+package com.pmj.template.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResponse {
+
+    private long received;
+    private long imported;
+    private long failed;
+
+    // Only the first errors are reported; see truncatedErrors
+    private List<RowError> errors;
+    private boolean truncatedErrors;
+
+    private long durationMs;
+    private double rowsPerSecond;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,94 @@
+package com.pmj.template.entity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The fixed set of roles a user can hold, stored together as a bitmask in {@code users.role_mask}.
+ * Bit positions are persisted: add new roles with a new bit and never reorder or reuse one.
+ */
+public enum Role {
+
+    USER("ROLE_USER", 0),
+    ADMIN("ROLE_ADMIN", 1);
+
+    private static final int ALL_MASK;
+
+    // Immutable authority name sets, one per mask value, shared by every user holding that combination
+    private static final List<Set<String>> AUTHORITIES_BY_MASK;
+
+    static {
+        int all = 0;
+        for (Role role : values()) {
+            all |= role.mask();
+        }
+        ALL_MASK = all;
+
+        List<Set<String>> byMask = new ArrayList<>(ALL_MASK + 1);
+        for (int mask = 0; mask <= ALL_MASK; mask++) {
+            Set<String> names = new LinkedHashSet<>();
+            for (Role role : fromMask(mask)) {
+                names.add(role.authority);
+            }
+            byMask.add(Collections.unmodifiableSet(names));
+        }
+        AUTHORITIES_BY_MASK = List.copyOf(byMask);
+    }
+
+    private final String authority;
+    private final int bit;
+
+    Role(String authority, int bit) {
+        this.authority = authority;
+        this.bit = bit;
+    }
+
+    public String authority() {
+        return authority;
+    }
+
+    public int mask() {
+        return 1 << bit;
+    }
+
+    public static Role fromAuthority(String authority) {
+        for (Role role : values()) {
+            if (role.authority.equals(authority)) {
+                return role;
+            }
+        }
+        throw new IllegalArgumentException("Unknown role: " + authority);
+    }
+
+    public static int toMask(Collection<String> authorities) {
+        int mask = 0;
+        for (String authority : authorities) {
+            mask |= fromAuthority(authority).mask();
+        }
+        return mask;
+    }
+
+    // Bits of roles this version does not know are ignored
+    public static Set<Role> fromMask(int mask) {
+        Set<Role> roles = EnumSet.noneOf(Role.class);
+        for (Role role : values()) {
+            if ((mask & role.mask()) != 0) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+
+    public static Set<String> authorities(int mask) {
+        return AUTHORITIES_BY_MASK.get(mask & ALL_MASK);
+    }
+
+    public static int allMask() {
+        return ALL_MASK;
+    }
+}
@@ -1,35 +1,70 @@
 package com.pmj.template.entity;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users",
+        uniqueConstraints = {
+                // Named so that a failed insert can be mapped back to the field that clashed.
+                // On the normalized columns, so names differing only in case clash and logins are index seeks
+                @UniqueConstraint(name = User.UK_USERNAME, columnNames = "username_normalized"),
+                @UniqueConstraint(name = User.UK_EMAIL, columnNames = "email_normalized")
+        },
+        indexes = {
+                // Supports keyset pagination ordered by creation time
+                @Index(name = "idx_users_created_at_id", columnList = "created_at, id"),
+                // Lets AvailabilityService pick up names written by other instances
+                @Index(name = "idx_users_updated_at", columnList = "updated_at")
+        })
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
+// Second-level cache region, configured in HibernateCacheConfig. Roles are part of the row, so they are cached too
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
 public class User {
+
+    public static final String UK_USERNAME = "uk_users_username";
+    public static final String UK_EMAIL = "uk_users_email";
+
+    public static final String CACHE_REGION = "users";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String username;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String email;
 
+    // Lower-cased copies of username and email, kept in line by normalizeLogins()
+    @Setter(AccessLevel.NONE)
+    @Column(name = "username_normalized", nullable = false)
+    private String usernameNormalized;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "email_normalized", nullable = false)
+    private String emailNormalized;
+
     @Column(nullable = false)
     private String password;
 
@@ -47,10 +82,22 @@ public class User {
     @Column(name = "enabled")
     private boolean enabled = true;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
-    @Column(name = "role")
-    private Set<String> roles = new HashSet<>();
+    // Bumped whenever roles or account status change, so tokens issued before the change stop being accepted
+    @Column(name = "security_version", nullable = false)
+    private long securityVersion;
+
+    // Bitmask of Role values; read in the same row as the user, so no join is needed for authorities
+    @Column(name = "role_mask", nullable = false)
+    private int roleMask;
+
+    // Written in batches by LoginActivityRecorder and never by Hibernate, so saving a loaded user
+    // cannot overwrite newer values with the ones it read
+    @Column(name = "last_login_at", insertable = false, updatable = false)
+    private LocalDateTime lastLoginAt;
+
+    @ColumnDefault("0")
+    @Column(name = "login_count", nullable = false, insertable = false, updatable = false)
+    private long loginCount;
 
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -59,4 +106,34 @@ public class User {
     @LastModifiedDate
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    // The form usernames and emails are compared in, for logins, uniqueness and availability checks
+    public static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalizeLogins() {
+        this.usernameNormalized = normalize(username);
+        this.emailNormalized = normalize(email);
+    }
+
+    // Authority names such as ROLE_ADMIN; the returned set is shared and immutable
+    public Set<String> getRoles() {
+        return Role.authorities(roleMask);
+    }
+
+    // Throws IllegalArgumentException for names that are not a known Role authority
+    public void setRoles(Set<String> roles) {
+        this.roleMask = Role.toMask(roles);
+    }
+
+    public static class UserBuilder {
+
+        public UserBuilder roles(Set<String> roles) {
+            this.roleMask = Role.toMask(roles);
+            return this;
+        }
+    }
 }
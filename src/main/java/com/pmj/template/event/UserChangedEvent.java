@@ -0,0 +1,47 @@
+package com.pmj.template.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published by the service layer whenever a user is created, updated or deleted.
+ * Listeners use it to keep derived in-memory state (caches, indexes) in line with the users table.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+
+    // Null for users created by the bulk import, which writes rows without reading generated keys back
+    private final Long userId;
+
+    // Values after the change; null for DELETED
+    private final String username;
+    private final String email;
+
+    // Values before the change; null for CREATED
+    private final String previousUsername;
+    private final String previousEmail;
+
+    public static UserChangedEvent created(Long userId, String username, String email) {
+        return new UserChangedEvent(Type.CREATED, userId, username, email, null, null);
+    }
+
+    public static UserChangedEvent updated(Long userId, String username, String email,
+                                           String previousUsername, String previousEmail) {
+        return new UserChangedEvent(Type.UPDATED, userId, username, email, previousUsername, previousEmail);
+    }
+
+    public static UserChangedEvent deleted(Long userId, String previousUsername, String previousEmail) {
+        return new UserChangedEvent(Type.DELETED, userId, null, null, previousUsername, previousEmail);
+    }
+}
@@ -0,0 +1,104 @@
+package com.pmj.template.mapper;
+
+import com.pmj.template.dto.UserDto;
+import com.pmj.template.dto.request.SignupRequest;
+import com.pmj.template.dto.request.UserRequest;
+import com.pmj.template.dto.response.UserResponse;
+import com.pmj.template.entity.Role;
+import com.pmj.template.entity.User;
+import com.pmj.template.repository.UserCredentials;
+import com.pmj.template.repository.UserSummary;
+import com.pmj.template.security.RoleAuthorities;
+import com.pmj.template.security.UserPrincipal;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.Named;
+import org.mapstruct.ReportingPolicy;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Every conversion between {@link User} and the DTOs, generated at compile time as plain getter and builder calls.
+ * Unmapped target properties fail the build, so a new field has to be mapped or ignored here explicitly.
+ * Roles are always derived from the role mask and share the interned sets and authority lists.
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface UserMapper {
+
+    @Mapping(target = "roles", source = "roleMask", qualifiedByName = "roleNames")
+    UserResponse toResponse(User user);
+
+    @Mapping(target = "roles", source = "roleMask", qualifiedByName = "roleNames")
+    UserResponse toResponse(UserSummary user);
+
+    // Role names are validated by the caller, which passes the resulting mask
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "usernameNormalized", ignore = true)
+    @Mapping(target = "emailNormalized", ignore = true)
+    @Mapping(target = "password", source = "encodedPassword")
+    @Mapping(target = "roleMask", source = "roleMask")
+    @Mapping(target = "roles", ignore = true)
+    @Mapping(target = "accountNonExpired", constant = "true")
+    @Mapping(target = "accountNonLocked", constant = "true")
+    @Mapping(target = "credentialsNonExpired", constant = "true")
+    @Mapping(target = "enabled", constant = "true")
+    @Mapping(target = "securityVersion", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "lastLoginAt", ignore = true)
+    @Mapping(target = "loginCount", ignore = true)
+    User toEntity(UserRequest request, String encodedPassword, int roleMask);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "usernameNormalized", ignore = true)
+    @Mapping(target = "emailNormalized", ignore = true)
+    @Mapping(target = "password", source = "encodedPassword")
+    @Mapping(target = "roleMask", source = "roleMask")
+    @Mapping(target = "roles", ignore = true)
+    @Mapping(target = "accountNonExpired", constant = "true")
+    @Mapping(target = "accountNonLocked", constant = "true")
+    @Mapping(target = "credentialsNonExpired", constant = "true")
+    @Mapping(target = "enabled", constant = "true")
+    @Mapping(target = "securityVersion", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "lastLoginAt", ignore = true)
+    @Mapping(target = "loginCount", ignore = true)
+    User toEntity(SignupRequest request, String encodedPassword, int roleMask);
+
+    // Copies the editable fields onto a managed user; roles and the security version are left to the caller,
+    // which decides whether the change has to invalidate issued tokens
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "roleMask", ignore = true)
+    @Mapping(target = "roles", ignore = true)
+    @Mapping(target = "accountNonExpired", ignore = true)
+    @Mapping(target = "accountNonLocked", ignore = true)
+    @Mapping(target = "credentialsNonExpired", ignore = true)
+    @Mapping(target = "securityVersion", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "lastLoginAt", ignore = true)
+    @Mapping(target = "loginCount", ignore = true)
+    void updateEntity(UserDto userDto, @MappingTarget User user);
+
+    @Mapping(target = "authorities", source = "roleMask", qualifiedByName = "authorities")
+    UserPrincipal toPrincipal(User user);
+
+    @Mapping(target = "authorities", source = "roleMask", qualifiedByName = "authorities")
+    UserPrincipal toPrincipal(UserCredentials credentials);
+
+    @Named("roleNames")
+    default Set<String> roleNames(int roleMask) {
+        return Role.authorities(roleMask);
+    }
+
+    @Named("authorities")
+    default List<GrantedAuthority> authorities(int roleMask) {
+        return RoleAuthorities.forMask(roleMask);
+    }
+}
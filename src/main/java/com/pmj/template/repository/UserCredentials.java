@@ -0,0 +1,18 @@
+package com.pmj.template.repository;
+
+/**
+ * The columns authentication needs, read without loading a managed {@code User} entity.
+ */
+public record UserCredentials(
+        Long id,
+        String username,
+        String email,
+        String password,
+        String fullName,
+        int roleMask,
+        boolean accountNonExpired,
+        boolean accountNonLocked,
+        boolean credentialsNonExpired,
+        boolean enabled,
+        long securityVersion) {
+}
@@ -0,0 +1,11 @@
+package com.pmj.template.repository;
+
+/**
+ * Projection of the identifying names of a user, without loading the entity.
+ */
+public interface UserNames {
+
+    String getUsername();
+
+    String getEmail();
+}
@@ -1,19 +1,100 @@
 package com.pmj.template.repository;
 
 import com.pmj.template.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
-    Optional<User> findByUsername(String username);
+    // Select clause shared by the read-only UserSummary queries
+    String SELECT_SUMMARY = "select new com.pmj.template.repository.UserSummary(u.id, u.username, u.email, "
+            + "u.fullName, u.roleMask, u.enabled, u.createdAt, u.updatedAt, u.lastLoginAt, u.loginCount) from User u ";
 
-    Optional<User> findByEmail(String email);
+    // Case-insensitive; pass values through User.normalize first
+    boolean existsByUsernameNormalized(String usernameNormalized);
 
-    boolean existsByUsername(String username);
+    boolean existsByEmailNormalized(String emailNormalized);
 
-    boolean existsByEmail(String email);
+    // Logins by username or email in one statement, served by the unique indexes on the normalized columns.
+    // Returns two rows when the login is one user's username and another user's email.
+    // Not read-only, so that with read replicas it reads the primary: a lagging replica would reject users who just
+    // signed up and accept passwords that were just changed
+    @Transactional
+    @Query("select new com.pmj.template.repository.UserCredentials(u.id, u.username, u.email, u.password, "
+            + "u.fullName, u.roleMask, u.accountNonExpired, u.accountNonLocked, u.credentialsNonExpired, "
+            + "u.enabled, u.securityVersion) "
+            + "from User u where u.usernameNormalized = :login or u.emailNormalized = :login")
+    List<UserCredentials> findCredentialsByLogin(@Param("login") String normalizedLogin);
+
+    // Single-user reads select their columns directly and bypass the second-level cache, which only holds the
+    // entities loaded whole by id
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_SUMMARY + "where u.id = :id")
+    Optional<UserSummary> findSummaryById(@Param("id") Long id);
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_SUMMARY + "where u.usernameNormalized = :usernameNormalized")
+    Optional<UserSummary> findSummaryByUsernameNormalized(@Param("usernameNormalized") String usernameNormalized);
+
+    // Freshness checks for conditional GETs; reads two columns instead of the whole row
+
+    @Transactional(readOnly = true)
+    @Query("select new com.pmj.template.repository.UserVersion(u.id, u.updatedAt, u.lastLoginAt) from User u "
+            + "where u.id = :id")
+    Optional<UserVersion> findVersionById(@Param("id") Long id);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.pmj.template.repository.UserVersion(u.id, u.updatedAt, u.lastLoginAt) from User u "
+            + "where u.usernameNormalized = :usernameNormalized")
+    Optional<UserVersion> findVersionByUsernameNormalized(@Param("usernameNormalized") String usernameNormalized);
+
+    // Keyset pagination: the pageable only carries the page size, never an offset
+
+    @Query(SELECT_SUMMARY + "where u.id > :afterId order by u.id asc")
+    List<UserSummary> findPageAfterId(@Param("afterId") Long afterId, Pageable limit);
+
+    @Query(SELECT_SUMMARY + "order by u.createdAt asc, u.id asc")
+    List<UserSummary> findFirstPageByCreatedAt(Pageable limit);
+
+    @Query(SELECT_SUMMARY + "where (u.createdAt, u.id) > (:createdAt, :afterId) order by u.createdAt asc, u.id asc")
+    List<UserSummary> findPageAfterCreatedAt(@Param("createdAt") LocalDateTime createdAt,
+                                             @Param("afterId") Long afterId,
+                                             Pageable limit);
+
+    // Server-side cursor for exports; must be consumed inside a transaction and closed by the caller.
+    // Bypasses the second-level cache, so a full export neither reads it nor evicts the hot entries with every row
+    @Query("select u from User u order by u.id asc")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    Stream<User> streamAllByOrderByIdAsc();
+
+    // Every normalized username and email, for building in-memory indexes; consume inside a transaction and close
+    @Query("select u.usernameNormalized as username, u.emailNormalized as email from User u")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<UserNames> streamAllNames();
+
+    // Names of users created or renamed since the given time, including those written by other instances
+    @Query("select u.usernameNormalized as username, u.emailNormalized as email from User u where u.updatedAt >= :since")
+    Stream<UserNames> streamNamesChangedSince(@Param("since") LocalDateTime since);
+
+    @Query("select u.securityVersion from User u where u.id = :id")
+    Optional<Long> findSecurityVersionById(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.pmj.template.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns the user read endpoints return, selected straight into this record.
+ * Nothing enters the persistence context, and the password hash is never read.
+ */
+public record UserSummary(
+        Long id,
+        String username,
+        String email,
+        String fullName,
+        int roleMask,
+        boolean enabled,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        LocalDateTime lastLoginAt,
+        long loginCount) {
+}
@@ -0,0 +1,10 @@
+package com.pmj.template.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Just enough of a user to tell whether a client's cached copy is still current.
+ * Login activity is written without touching updatedAt, so it is part of the version too.
+ */
+public record UserVersion(Long id, LocalDateTime updatedAt, LocalDateTime lastLoginAt) {
+}
@@ -0,0 +1,159 @@
+package com.pmj.template.security;
+
+import com.pmj.template.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing and verification on a small fixed pool instead of the calling request thread.
+ * BCrypt is deliberately CPU-bound, so the pool is sized to the CPU count and has a bounded queue;
+ * once both are full, callers fail fast with {@link ServiceOverloadedException} rather than
+ * tying up request threads that cheaper endpoints need.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private static final String OVERLOADED_MESSAGE = "Too many concurrent password operations, please retry shortly";
+
+    private static final String TIMER_DESCRIPTION = "Time spent hashing or verifying a password, excluding queueing";
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_MATCH = "match";
+    private static final String OUTCOME_MISMATCH = "mismatch";
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+    private final long timeoutNanos;
+
+    private final OutcomeTimers encodeTimers;
+    private final OutcomeTimers matchesTimers;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity,
+                                  Duration timeout, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.threads = threads;
+        this.timeoutNanos = timeout.toNanos();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.prestartAllCoreThreads();
+        this.executor = pool;
+
+        // Publishes executor.queued, executor.active, executor.pool.size etc. tagged name=password.hashing
+        new ExecutorServiceMetrics(pool, "password.hashing", Tags.empty()).bindTo(meterRegistry);
+
+        this.encodeTimers = new OutcomeTimers(meterRegistry, "password.encoder", TIMER_DESCRIPTION,
+                Tags.of("operation", "encode"), OUTCOME_SUCCESS);
+        this.matchesTimers = new OutcomeTimers(meterRegistry, "password.encoder", TIMER_DESCRIPTION,
+                Tags.of("operation", "matches"), OUTCOME_MATCH, OUTCOME_MISMATCH);
+        this.rejected = Counter.builder("password.encoder.rejected")
+                .description("Password operations refused because the hashing pool was saturated")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> timedEncode(rawPassword));
+    }
+
+    /**
+     * Queues a hash on the pool without waiting for it, for batch callers that keep several hashes in flight.
+     * There is no timeout; callers should bound how many hashes they have in flight at once.
+     *
+     * @throws ServiceOverloadedException if the pool and its queue are full
+     */
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> timedEncode(rawPassword), executor);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new ServiceOverloadedException(OVERLOADED_MESSAGE, ex);
+        }
+    }
+
+    // Number of hashing threads, i.e. how many hashes run at once
+    public int getThreads() {
+        return threads;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> {
+            long startNanos = System.nanoTime();
+            boolean matched = delegate.matches(rawPassword, encodedPassword);
+            matchesTimers.recordSince(matched ? OUTCOME_MATCH : OUTCOME_MISMATCH, startNanos);
+            return matched;
+        });
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private String timedEncode(CharSequence rawPassword) {
+        long startNanos = System.nanoTime();
+        String encoded = delegate.encode(rawPassword);
+        encodeTimers.recordSince(OUTCOME_SUCCESS, startNanos);
+        return encoded;
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new ServiceOverloadedException(OVERLOADED_MESSAGE, ex);
+        }
+
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            rejected.increment();
+            throw new ServiceOverloadedException(OVERLOADED_MESSAGE, ex);
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException(OVERLOADED_MESSAGE, ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Password operation failed", cause);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
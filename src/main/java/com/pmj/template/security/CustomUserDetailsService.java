@@ -2,42 +2,79 @@ package com.pmj.template.security;
 
 import com.pmj.template.entity.User;
 import com.pmj.template.exception.ResourceNotFoundException;
+import com.pmj.template.mapper.UserMapper;
+import com.pmj.template.repository.UserCredentials;
 import com.pmj.template.repository.UserRepository;
+import com.pmj.template.util.AppConstants;
+import com.pmj.template.util.SingleFlight;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final SingleFlight<Long, UserDetails> principalLoads;
+    private final CacheManager cacheManager;
+    private final PrincipalCacheEvictor principalCacheEvictor;
 
+    // Cached principals are evicted by PrincipalCacheEvictor whenever the user changes
+    // Read-write so that credentials are read from the primary (see UserRepository.findCredentialsByLogin)
     @Override
-    @Transactional(readOnly = true)
+    @Transactional
+    @Cacheable(cacheNames = AppConstants.USER_PRINCIPALS_BY_LOGIN_CACHE,
+            key = "T(com.pmj.template.entity.User).normalize(#usernameOrEmail)")
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
-        // Try to find by username first
-        User user = userRepository.findByUsername(usernameOrEmail)
-                .orElse(null);
-
-        // If not found, try by email
-        if (user == null) {
-            user = userRepository.findByEmail(usernameOrEmail)
-                    .orElseThrow(() -> new UsernameNotFoundException("User not found with username or email: " + usernameOrEmail));
+        String login = User.normalize(usernameOrEmail);
+        List<UserCredentials> matches = userRepository.findCredentialsByLogin(login);
+        if (matches.isEmpty()) {
+            throw new UsernameNotFoundException("User not found with username or email: " + usernameOrEmail);
         }
 
-        return UserPrincipal.create(user);
+        // A username may equal another user's email; the username wins
+        UserCredentials credentials = matches.stream()
+                .filter(match -> login.equals(User.normalize(match.username())))
+                .findFirst()
+                .orElse(matches.get(0));
+
+        return userMapper.toPrincipal(credentials);
     }
 
-    // This method is used by JwtAuthenticationFilter
-    @Transactional(readOnly = true)
+    // This method is used by JwtAuthenticationFilter. Not transactional, so requests waiting on a load
+    // already in flight for the same id do not hold a connection; findById runs in its own transaction
     public UserDetails loadUserById(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        Cache cache = cacheManager.getCache(AppConstants.USER_PRINCIPALS_BY_ID_CACHE);
+        UserDetails cached = cache == null ? null : cache.get(id, UserDetails.class);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Only the load that ran caches its result, not every request that joined it
+        return principalLoads.execute(id, () -> {
+            long evictions = principalCacheEvictor.evictionsById();
+            User user = userRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+            UserDetails principal = userMapper.toPrincipal(user);
 
-        return UserPrincipal.create(user);
+            if (cache != null) {
+                cache.put(id, principal);
+                // A change committed during the load was evicted before this put, and the principal may predate it
+                if (principalCacheEvictor.evictionsById() != evictions) {
+                    cache.evict(id);
+                }
+            }
+            return principal;
+        });
     }
-}
\ No newline at end of file
+}
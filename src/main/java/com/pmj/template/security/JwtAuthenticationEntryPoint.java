@@ -0,0 +1,36 @@
+package com.pmj.template.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pmj.template.controller.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Answers requests to protected endpoints without a valid token with 401 and the usual {@link ApiResponse} body.
+ */
+@Component
+public class JwtAuthenticationEntryPoint implements AuthenticationEntryPoint {
+
+    // Resolved once instead of on every rejected request
+    private final ObjectWriter writer;
+
+    public JwtAuthenticationEntryPoint(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writerFor(ApiResponse.class);
+    }
+
+    @Override
+    public void commence(HttpServletRequest request, HttpServletResponse response,
+                         AuthenticationException authException) throws IOException {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        writer.writeValue(response.getOutputStream(),
+                ApiResponse.error("Full authentication is required to access this resource"));
+    }
+}
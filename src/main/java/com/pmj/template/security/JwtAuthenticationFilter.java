@@ -1,56 +1,141 @@
 package com.pmj.template.security;
 
+import com.pmj.template.exception.ResourceNotFoundException;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // Outcomes of security.jwt.filter
+    static final String FILTER_AUTHENTICATED = "authenticated";
+    static final String FILTER_NO_TOKEN = "no-token";
+    static final String FILTER_INVALID_TOKEN = "invalid-token";
+    static final String FILTER_REJECTED = "rejected";
+    static final String FILTER_REVOKED = "revoked";
+    static final String FILTER_ERROR = "error";
+
+    // Outcomes of security.jwt.principal
+    static final String PRINCIPAL_CLAIMS = "claims";
+    static final String PRINCIPAL_STALE = "stale";
+    static final String PRINCIPAL_LOADED = "loaded";
+    static final String PRINCIPAL_NOT_FOUND = "not-found";
+    static final String PRINCIPAL_ERROR = "error";
+
     private final JwtTokenProvider tokenProvider;
-    private final UserDetailsService userDetailsService;
+    private final CustomUserDetailsService userDetailsService;
+    private final SecurityVersionCache securityVersionCache;
+    private final TokenDenylist tokenDenylist;
+
+    private final OutcomeTimers filterTimers;
+    private final OutcomeTimers principalTimers;
+
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider,
+                                   CustomUserDetailsService userDetailsService,
+                                   SecurityVersionCache securityVersionCache,
+                                   TokenDenylist tokenDenylist,
+                                   MeterRegistry meterRegistry) {
+        this.tokenProvider = tokenProvider;
+        this.userDetailsService = userDetailsService;
+        this.securityVersionCache = securityVersionCache;
+        this.tokenDenylist = tokenDenylist;
+        this.filterTimers = new OutcomeTimers(meterRegistry, "security.jwt.filter",
+                "Time spent authenticating a request from its bearer token, excluding the rest of the chain",
+                Tags.empty(), FILTER_AUTHENTICATED, FILTER_NO_TOKEN, FILTER_INVALID_TOKEN, FILTER_REJECTED, FILTER_REVOKED,
+                FILTER_ERROR);
+        this.principalTimers = new OutcomeTimers(meterRegistry, "security.jwt.principal",
+                "Time to resolve the principal of a verified token, from its claims or by loading the user",
+                Tags.empty(), PRINCIPAL_CLAIMS, PRINCIPAL_STALE, PRINCIPAL_LOADED, PRINCIPAL_NOT_FOUND, PRINCIPAL_ERROR);
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        long startNanos = System.nanoTime();
+        String outcome = FILTER_NO_TOKEN;
         try {
-            String jwt = getJwtFromRequest(request);
+            String jwt = JwtTokenProvider.resolveBearerToken(request.getHeader("Authorization"));
+
+            if (StringUtils.hasText(jwt)) {
+                // Verify the signature and extract the claims in a single pass
+                Optional<Claims> claims = tokenProvider.parseToken(jwt);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                Long userId = tokenProvider.getUserIdFromJWT(jwt);
+                // Checked before the principal is resolved, so a revoked token costs no user lookup
+                boolean revoked = claims.isPresent() && tokenDenylist.isRevoked(claims.get());
+                UserDetails userDetails = revoked ? null : claims.map(this::resolvePrincipal).orElse(null);
 
-                UserDetails userDetails = userDetailsService.loadUserById(userId);
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                if (revoked) {
+                    outcome = FILTER_REVOKED;
+                } else if (userDetails != null && isUsable(userDetails)) {
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    outcome = FILTER_AUTHENTICATED;
+                } else {
+                    outcome = claims.isPresent() ? FILTER_REJECTED : FILTER_INVALID_TOKEN;
+                }
             }
         } catch (Exception ex) {
+            outcome = FILTER_ERROR;
             logger.error("Could not set user authentication in security context", ex);
         }
+        filterTimers.recordSince(outcome, startNanos);
 
         filterChain.doFilter(request, response);
     }
 
-    private String getJwtFromRequest(HttpServletRequest request) {
-        String bearerToken = request.getHeader("Authorization");
-        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
-            return bearerToken.substring(7);
+    // In self-contained mode the principal comes straight from the claims, guarded by the security version check;
+    // older tokens without the embedded claims fall back to loading the user
+    private UserDetails resolvePrincipal(Claims claims) {
+        long startNanos = System.nanoTime();
+        String outcome = PRINCIPAL_ERROR;
+        try {
+            if (tokenProvider.isSelfContained()) {
+                Optional<UserPrincipal> principal = tokenProvider.getPrincipalFromClaims(claims);
+                if (principal.isPresent()) {
+                    UserPrincipal userPrincipal = principal.get();
+                    if (securityVersionCache.isCurrent(userPrincipal.getId(), userPrincipal.getSecurityVersion())) {
+                        outcome = PRINCIPAL_CLAIMS;
+                        return userPrincipal;
+                    }
+                    outcome = PRINCIPAL_STALE;
+                    return null;
+                }
+            }
+
+            UserDetails userDetails = userDetailsService.loadUserById(Long.parseLong(claims.getSubject()));
+            outcome = PRINCIPAL_LOADED;
+            return userDetails;
+        } catch (ResourceNotFoundException ex) {
+            // The token outlived its user
+            outcome = PRINCIPAL_NOT_FOUND;
+            return null;
+        } finally {
+            principalTimers.recordSince(outcome, startNanos);
         }
-        return null;
     }
-}
\ No newline at end of file
+
+    private boolean isUsable(UserDetails userDetails) {
+        return userDetails.isEnabled()
+                && userDetails.isAccountNonLocked()
+                && userDetails.isAccountNonExpired()
+                && userDetails.isCredentialsNonExpired();
+    }
+}
@@ -1,29 +1,109 @@
 package com.pmj.template.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenProvider {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenProvider.class);
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    // Claims carried by every token
+    static final String CLAIM_SECURITY_VERSION = "sv";
+
+    // Claims carried only in self-contained mode
+    static final String CLAIM_USERNAME = "usr";
+    static final String CLAIM_EMAIL = "eml";
+    static final String CLAIM_ROLE_MASK = "rm";
+    static final String CLAIM_ACCOUNT_FLAGS = "acct";
+
+    private static final int FLAG_ENABLED = 1;
+    private static final int FLAG_ACCOUNT_NON_LOCKED = 1 << 1;
+    private static final int FLAG_ACCOUNT_NON_EXPIRED = 1 << 2;
+    private static final int FLAG_CREDENTIALS_NON_EXPIRED = 1 << 3;
+
+    // Outcomes of security.jwt.parse
+    static final String PARSE_HIT = "hit";
+    static final String PARSE_MISS = "miss";
+    static final String PARSE_EXPIRED = "expired";
+    static final String PARSE_INVALID = "invalid";
+
+    // HS512 requires a key of at least 512 bits
+    private static final int MIN_SECRET_BYTES = 64;
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
     @Value("${app.jwt.expiration}")
     private long jwtExpirationInMs;
 
+    @Value("${app.jwt.cache.maximum-size:10000}")
+    private long verifiedTokenCacheSize;
+
+    // When enabled, tokens carry everything needed to build the principal without a database lookup
+    @Value("${app.jwt.self-contained:false}")
+    private boolean selfContained;
+
     private Key key;
 
+    // JwtParser is immutable and thread-safe, so one instance serves every request
+    private JwtParser parser;
+
+    // Claims of tokens whose signature has already been checked, keyed by the SHA-256 digest of the token
+    private Cache<String, Claims> verifiedTokens;
+
+    private final MeterRegistry meterRegistry;
+
+    private OutcomeTimers parseTimers;
+
+    public JwtTokenProvider(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @PostConstruct
     public void init() {
-        this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        byte[] secret = jwtSecret.getBytes(StandardCharsets.UTF_8);
+        // Fail at startup rather than with a WeakKeyException on the first sign-in
+        if (secret.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("app.jwt.secret must be at least " + MIN_SECRET_BYTES
+                    + " bytes for HS512, got " + secret.length);
+        }
+        this.key = Keys.hmacShaKeyFor(secret);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedTokenCacheSize)
+                .expireAfter(new TokenExpiry())
+                .build();
+        this.parseTimers = new OutcomeTimers(meterRegistry, "security.jwt.parse",
+                "Time to verify a bearer token; hit and miss refer to the verified-token cache",
+                Tags.empty(), PARSE_HIT, PARSE_MISS, PARSE_EXPIRED, PARSE_INVALID);
     }
 
     public String generateToken(Authentication authentication) {
@@ -32,37 +112,174 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
-        return Jwts.builder()
+        // The random id (jti) is what TokenDenylist records when the token is revoked
+        JwtBuilder builder = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(Long.toString(userPrincipal.getId()))
-                .setIssuedAt(new Date())
+                .setIssuedAt(now)
                 .setExpiration(expiryDate)
+                .claim(CLAIM_SECURITY_VERSION, userPrincipal.getSecurityVersion());
+
+        if (selfContained) {
+            builder.claim(CLAIM_USERNAME, userPrincipal.getUsername())
+                    .claim(CLAIM_EMAIL, userPrincipal.getEmail())
+                    .claim(CLAIM_ROLE_MASK, RoleAuthorities.toMask(userPrincipal.getAuthorities()))
+                    .claim(CLAIM_ACCOUNT_FLAGS, accountFlags(userPrincipal));
+        }
+
+        return builder
                 .signWith(key, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    public Long getUserIdFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    // The token of an "Authorization: Bearer <token>" header, or null for any other header value
+    public static String resolveBearerToken(String authorizationHeader) {
+        if (StringUtils.hasText(authorizationHeader) && authorizationHeader.startsWith(BEARER_PREFIX)) {
+            return authorizationHeader.substring(BEARER_PREFIX.length());
+        }
+        return null;
+    }
 
-        return Long.parseLong(claims.getSubject());
+    public boolean isSelfContained() {
+        return selfContained;
     }
 
-    public boolean validateToken(String authToken) {
+    /**
+     * Builds the principal from the claims of a self-contained token.
+     * Returns empty for tokens issued without the self-contained claims, so callers can fall back to a lookup.
+     */
+    public Optional<UserPrincipal> getPrincipalFromClaims(Claims claims) {
+        String username = claims.get(CLAIM_USERNAME, String.class);
+        Integer flags = claims.get(CLAIM_ACCOUNT_FLAGS, Integer.class);
+        Number roleMask = claims.get(CLAIM_ROLE_MASK, Number.class);
+        Number securityVersion = claims.get(CLAIM_SECURITY_VERSION, Number.class);
+        if (username == null || flags == null || roleMask == null || securityVersion == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(UserPrincipal.builder()
+                .id(Long.parseLong(claims.getSubject()))
+                .username(username)
+                .email(claims.get(CLAIM_EMAIL, String.class))
+                .authorities(RoleAuthorities.forMask(roleMask.intValue()))
+                .enabled((flags & FLAG_ENABLED) != 0)
+                .accountNonLocked((flags & FLAG_ACCOUNT_NON_LOCKED) != 0)
+                .accountNonExpired((flags & FLAG_ACCOUNT_NON_EXPIRED) != 0)
+                .credentialsNonExpired((flags & FLAG_CREDENTIALS_NON_EXPIRED) != 0)
+                .securityVersion(securityVersion.longValue())
+                .build());
+    }
+
+    /**
+     * Verifies the token and returns its claims, or an empty result if the token is invalid or expired.
+     * The signature is checked once per distinct token; repeated calls are served from the verified-token cache
+     * until the token expires.
+     */
+    public Optional<Claims> parseToken(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        long startNanos = System.nanoTime();
+        String digest = digest(token);
+        Claims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            if (isExpired(cached)) {
+                verifiedTokens.invalidate(digest);
+                parseTimers.recordSince(PARSE_EXPIRED, startNanos);
+                return Optional.empty();
+            }
+            parseTimers.recordSince(PARSE_HIT, startNanos);
+            return Optional.of(cached);
+        }
+
+        String outcome = PARSE_INVALID;
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken);
-            return true;
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            verifiedTokens.put(digest, claims);
+            parseTimers.recordSince(PARSE_MISS, startNanos);
+            return Optional.of(claims);
+        } catch (SignatureException ex) {
+            log.debug("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
-            System.out.println("Invalid JWT token");
+            log.debug("Invalid JWT token");
         } catch (ExpiredJwtException ex) {
-            System.out.println("Expired JWT token");
+            outcome = PARSE_EXPIRED;
+            log.debug("Expired JWT token");
         } catch (UnsupportedJwtException ex) {
-            System.out.println("Unsupported JWT token");
+            log.debug("Unsupported JWT token");
+        } catch (JwtException ex) {
+            log.debug("Rejected JWT token: {}", ex.getMessage());
         } catch (IllegalArgumentException ex) {
-            System.out.println("JWT claims string is empty");
+            log.debug("JWT claims string is empty");
+        }
+        parseTimers.recordSince(outcome, startNanos);
+        return Optional.empty();
+    }
+
+    public Long getUserIdFromJWT(String token) {
+        Claims claims = parseToken(token)
+                .orElseThrow(() -> new JwtException("Invalid JWT token"));
+
+        return Long.parseLong(claims.getSubject());
+    }
+
+    public boolean validateToken(String authToken) {
+        return parseToken(authToken).isPresent();
+    }
+
+    private static int accountFlags(UserPrincipal principal) {
+        int flags = 0;
+        if (principal.isEnabled()) {
+            flags |= FLAG_ENABLED;
+        }
+        if (principal.isAccountNonLocked()) {
+            flags |= FLAG_ACCOUNT_NON_LOCKED;
+        }
+        if (principal.isAccountNonExpired()) {
+            flags |= FLAG_ACCOUNT_NON_EXPIRED;
+        }
+        if (principal.isCredentialsNonExpired()) {
+            flags |= FLAG_CREDENTIALS_NON_EXPIRED;
+        }
+        return flags;
+    }
+
+    private static boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // Keeps a verified token only until its own "exp" claim, so an expired token is never served from the cache
+    private class TokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            long remainingMs = expiration != null
+                    ? expiration.getTime() - System.currentTimeMillis()
+                    : jwtExpirationInMs;
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
         }
-        return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package com.pmj.template.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One timer per outcome of an operation, registered up front so the request path only does a map lookup.
+ */
+final class OutcomeTimers {
+
+    private final Map<String, Timer> timers = new HashMap<>();
+
+    OutcomeTimers(MeterRegistry meterRegistry, String name, String description, Tags tags, String... outcomes) {
+        for (String outcome : outcomes) {
+            timers.put(outcome, Timer.builder(name)
+                    .description(description)
+                    .tags(tags)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    void recordSince(String outcome, long startNanos) {
+        Timer timer = timers.get(outcome);
+        if (timer == null) {
+            throw new IllegalArgumentException("Unknown outcome: " + outcome);
+        }
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
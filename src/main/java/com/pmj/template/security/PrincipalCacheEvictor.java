@@ -0,0 +1,55 @@
+package com.pmj.template.security;
+
+import com.pmj.template.entity.User;
+import com.pmj.template.event.UserChangedEvent;
+import com.pmj.template.util.AppConstants;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drops cached principals of a user as soon as the change that affects them is committed,
+ * so a disabled user or a role change takes effect on the next request.
+ */
+@Component
+@RequiredArgsConstructor
+public class PrincipalCacheEvictor {
+
+    private final CacheManager cacheManager;
+
+    // Evictions by id so far; see CustomUserDetailsService.loadUserById
+    private final AtomicLong evictionsById = new AtomicLong();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        Cache byId = cacheManager.getCache(AppConstants.USER_PRINCIPALS_BY_ID_CACHE);
+        if (byId != null && event.getUserId() != null) {
+            // Counted before the eviction, so a load that caches its result afterwards is sure to see it
+            evictionsById.incrementAndGet();
+            byId.evict(event.getUserId());
+        }
+
+        // Logins are cached under the normalized username or email, so drop both the old and the new ones
+        Cache byLogin = cacheManager.getCache(AppConstants.USER_PRINCIPALS_BY_LOGIN_CACHE);
+        if (byLogin != null) {
+            evictIfPresent(byLogin, event.getUsername());
+            evictIfPresent(byLogin, event.getEmail());
+            evictIfPresent(byLogin, event.getPreviousUsername());
+            evictIfPresent(byLogin, event.getPreviousEmail());
+        }
+    }
+
+    long evictionsById() {
+        return evictionsById.get();
+    }
+
+    private void evictIfPresent(Cache cache, String key) {
+        if (key != null) {
+            cache.evict(User.normalize(key));
+        }
+    }
+}
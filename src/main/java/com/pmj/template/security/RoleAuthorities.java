@@ -0,0 +1,42 @@
+package com.pmj.template.security;
+
+import com.pmj.template.entity.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pre-built, immutable authority lists for every role mask, so principals share them instead of
+ * allocating a new list of {@link SimpleGrantedAuthority} per request.
+ */
+public final class RoleAuthorities {
+
+    private static final List<List<GrantedAuthority>> BY_MASK;
+
+    static {
+        List<List<GrantedAuthority>> byMask = new ArrayList<>(Role.allMask() + 1);
+        for (int mask = 0; mask <= Role.allMask(); mask++) {
+            byMask.add(Role.authorities(mask).stream()
+                    .map(authority -> (GrantedAuthority) new SimpleGrantedAuthority(authority))
+                    .toList());
+        }
+        BY_MASK = List.copyOf(byMask);
+    }
+
+    private RoleAuthorities() {
+    }
+
+    public static List<GrantedAuthority> forMask(int mask) {
+        return BY_MASK.get(mask & Role.allMask());
+    }
+
+    static int toMask(Iterable<? extends GrantedAuthority> authorities) {
+        int mask = 0;
+        for (GrantedAuthority authority : authorities) {
+            mask |= Role.fromAuthority(authority.getAuthority()).mask();
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,50 @@
+package com.pmj.template.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pmj.template.event.UserChangedEvent;
+import com.pmj.template.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Short-lived cache of each user's current security version.
+ * A self-contained token is only accepted while the version it carries is not older than this value,
+ * which costs one primary-key lookup of a single column per user per TTL instead of a full user load per request.
+ */
+@Component
+public class SecurityVersionCache {
+
+    // Marker for users that no longer exist; Caffeine does not store null values
+    private static final long UNKNOWN_USER = -1L;
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Long> versions;
+
+    public SecurityVersionCache(UserRepository userRepository,
+                                @Value("${app.jwt.security-version-ttl:30s}") Duration ttl,
+                                @Value("${app.jwt.security-version-cache-size:100000}") long maximumSize) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public boolean isCurrent(Long userId, long tokenVersion) {
+        long current = versions.get(userId,
+                id -> userRepository.findSecurityVersionById(id).orElse(UNKNOWN_USER));
+        return current != UNKNOWN_USER && tokenVersion >= current;
+    }
+
+    // Runs after commit so a concurrent reader cannot re-cache the version that is being replaced
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getUserId() != null) {
+            versions.invalidate(event.getUserId());
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.pmj.template.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ids ({@code jti}) of tokens revoked before their expiry, checked on every authenticated request.
+ * A check is one hash probe on a UUID key, and nothing at all while no token is revoked. Each entry only
+ * lives until its token would have expired anyway, so the list holds at most one token lifetime of revocations
+ * (roughly 100 bytes each).
+ * <p>
+ * Each revocation is appended to a journal file and forced to disk before it is acknowledged. The whole list is
+ * compacted into a snapshot file in the background and on shutdown, which empties the journal. On startup the
+ * snapshot is read and the journal replayed, so revocations survive a restart or a crash. Every instance keeps its
+ * own list.
+ */
+@Component
+public class TokenDenylist implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenDenylist.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x4a54_4431; // "JTD1"
+
+    // Journal records: token id (two longs) and expiry in epoch milliseconds
+    private static final int JOURNAL_RECORD_BYTES = 3 * Long.BYTES;
+
+    // Starts before and stops after the web server (DEFAULT_PHASE - 2048), so no request revokes a token
+    // before the snapshot is read or after the journal is closed
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    // Token id -> expiry of the token in epoch milliseconds
+    private final ConcurrentHashMap<UUID, Long> revoked = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private final Path snapshotPath;
+    private final Path journalPath;
+    private final Duration snapshotInterval;
+    private final Counter revocations;
+
+    // Guards the journal: appends never interleave with the snapshot that empties it
+    private final Object fileLock = new Object();
+    private FileChannel journal;
+    private boolean journalClosed;
+
+    private ScheduledExecutorService snapshotter;
+    private volatile boolean running;
+
+    public TokenDenylist(MeterRegistry meterRegistry,
+                         @Value("${app.jwt.denylist.snapshot-path:}") String snapshotPath,
+                         @Value("${app.jwt.denylist.snapshot-interval:30s}") Duration snapshotInterval) {
+        this.snapshotPath = StringUtils.hasText(snapshotPath) ? Path.of(snapshotPath) : null;
+        this.journalPath = this.snapshotPath == null ? null : Path.of(snapshotPath + ".journal");
+        this.snapshotInterval = snapshotInterval;
+        this.revocations = Counter.builder("security.jwt.revocations")
+                .description("Tokens revoked through logout or the revoke endpoint")
+                .register(meterRegistry);
+        Gauge.builder("security.jwt.denylist.size", revoked, Map::size)
+                .description("Revoked tokens that have not expired yet")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Revokes the token until its expiry. Returns false for tokens without a UUID id or an expiry,
+     * such as tokens issued before ids were added, which cannot be revoked individually.
+     * Returns once the revocation is on disk, when persistence is enabled.
+     *
+     * @throws IllegalStateException if persistence is enabled and the list has been stopped, as the revocation
+     *                               could no longer be saved
+     */
+    public boolean revoke(Claims claims) {
+        UUID id = tokenId(claims);
+        Date expiration = claims.getExpiration();
+        if (id == null || expiration == null) {
+            return false;
+        }
+        if (revoked.put(id, expiration.getTime()) == null) {
+            revocations.increment();
+        }
+        dirty.set(true);
+        appendToJournal(id, expiration.getTime());
+        return true;
+    }
+
+    // Never runs while a snapshot empties the journal, so every revocation ends up in the snapshot, the journal or both
+    private void appendToJournal(UUID id, long expiresAt) {
+        synchronized (fileLock) {
+            if (journal == null) {
+                if (journalClosed) {
+                    throw new IllegalStateException("Token denylist is stopped; revocation of " + id
+                            + " would not be saved to " + journalPath);
+                }
+                return;
+            }
+            ByteBuffer record = ByteBuffer.allocate(JOURNAL_RECORD_BYTES)
+                    .putLong(id.getMostSignificantBits())
+                    .putLong(id.getLeastSignificantBits())
+                    .putLong(expiresAt)
+                    .flip();
+            try {
+                while (record.hasRemaining()) {
+                    journal.write(record);
+                }
+                journal.force(false);
+            } catch (IOException ex) {
+                // Still in memory, and in the next snapshot
+                log.warn("Could not append revocation to {}", journalPath, ex);
+            }
+        }
+    }
+
+    // Expired tokens are rejected before this check, so entries past their expiry never need to be consulted
+    public boolean isRevoked(Claims claims) {
+        if (revoked.isEmpty()) {
+            return false;
+        }
+        UUID id = tokenId(claims);
+        return id != null && revoked.containsKey(id);
+    }
+
+    void purgeExpired() {
+        long now = System.currentTimeMillis();
+        if (revoked.values().removeIf(expiresAt -> expiresAt <= now)) {
+            dirty.set(true);
+        }
+    }
+
+    void writeSnapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+        synchronized (fileLock) {
+            if (dirty.getAndSet(false)) {
+                compact();
+            }
+        }
+    }
+
+    private void compact() {
+        try {
+            Path parent = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, snapshotPath.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                for (Map.Entry<UUID, Long> entry : revoked.entrySet()) {
+                    out.writeBoolean(true);
+                    out.writeLong(entry.getKey().getMostSignificantBits());
+                    out.writeLong(entry.getKey().getLeastSignificantBits());
+                    out.writeLong(entry.getValue());
+                }
+                out.writeBoolean(false);
+            }
+            // Readers only ever see a complete snapshot
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // Everything in the journal is now in the snapshot
+            if (journal != null) {
+                journal.truncate(0);
+            }
+        } catch (IOException ex) {
+            dirty.set(true);
+            log.warn("Could not write token denylist snapshot to {}, will retry", snapshotPath, ex);
+        }
+    }
+
+    void readSnapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                log.warn("Ignoring {}: not a token denylist snapshot", snapshotPath);
+                return;
+            }
+            while (in.readBoolean()) {
+                UUID id = new UUID(in.readLong(), in.readLong());
+                long expiresAt = in.readLong();
+                if (expiresAt > now) {
+                    revoked.put(id, expiresAt);
+                    restored++;
+                }
+            }
+            log.info("Restored {} revoked tokens from {}", restored, snapshotPath);
+        } catch (NoSuchFileException ex) {
+            // First start, nothing revoked yet
+        } catch (IOException ex) {
+            log.warn("Could not read token denylist snapshot {}; keeping the {} revocations read so far",
+                    snapshotPath, restored, ex);
+        }
+    }
+
+    // A record cut short by a crash is ignored; its revocation was never acknowledged
+    void replayJournal() {
+        if (journalPath == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int replayed = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalPath)))) {
+            while (true) {
+                UUID id = new UUID(in.readLong(), in.readLong());
+                long expiresAt = in.readLong();
+                if (expiresAt > now) {
+                    revoked.put(id, expiresAt);
+                    replayed++;
+                }
+            }
+        } catch (NoSuchFileException | EOFException ex) {
+            // End of the journal
+        } catch (IOException ex) {
+            log.warn("Could not read token denylist journal {}; keeping the {} revocations read so far",
+                    journalPath, replayed, ex);
+        }
+        if (replayed > 0) {
+            // Fold them into the next snapshot
+            dirty.set(true);
+            log.info("Replayed {} revoked tokens from {}", replayed, journalPath);
+        }
+    }
+
+    void openJournal() throws IOException {
+        if (journalPath == null) {
+            return;
+        }
+        Files.createDirectories(journalPath.toAbsolutePath().getParent());
+        synchronized (fileLock) {
+            // Without a journal, revocations are still saved with each snapshot
+            journalClosed = false;
+            journal = FileChannel.open(journalPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    private void closeJournal() {
+        synchronized (fileLock) {
+            journalClosed = journalPath != null;
+            if (journal == null) {
+                return;
+            }
+            try {
+                journal.close();
+            } catch (IOException ex) {
+                log.warn("Could not close token denylist journal {}", journalPath, ex);
+            }
+            journal = null;
+        }
+    }
+
+    private static UUID tokenId(Claims claims) {
+        String id = claims.getId();
+        if (id == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public void start() {
+        readSnapshot();
+        replayJournal();
+        try {
+            openJournal();
+        } catch (IOException ex) {
+            log.warn("Could not open token denylist journal {}; revocations are only saved with each snapshot",
+                    journalPath, ex);
+        }
+        snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-denylist");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = snapshotInterval.toMillis();
+        snapshotter.scheduleWithFixedDelay(() -> {
+            purgeExpired();
+            writeSnapshot();
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        snapshotter.shutdown();
+        try {
+            if (!snapshotter.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Token denylist snapshotter did not finish in time");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        purgeExpired();
+        writeSnapshot();
+        closeJournal();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -1,18 +1,15 @@
 package com.pmj.template.security;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.pmj.template.entity.User;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.List;
-import java.util.stream.Collectors;
 
+// Built from users by UserMapper and from token claims by JwtTokenProvider
 @Data
 @AllArgsConstructor
 @Builder
@@ -32,22 +29,6 @@ public class UserPrincipal implements UserDetails {
     private final boolean credentialsNonExpired;
     private final boolean enabled;
 
-    public static UserPrincipal create(User user) {
-        List<GrantedAuthority> authorities = user.getRoles().stream()
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
-
-        return UserPrincipal.builder()
-                .id(user.getId())
-                .username(user.getUsername())
-                .email(user.getEmail())
-                .password(user.getPassword())
-                .fullName(user.getFullName())
-                .authorities(authorities)
-                .accountNonExpired(user.isAccountNonExpired())
-                .accountNonLocked(user.isAccountNonLocked())
-                .credentialsNonExpired(user.isCredentialsNonExpired())
-                .enabled(user.isEnabled())
-                .build();
-    }
+    @JsonIgnore
+    private final long securityVersion;
 }
@@ -0,0 +1,212 @@
+package com.pmj.template.service;
+
+import com.pmj.template.entity.User;
+import com.pmj.template.event.UserChangedEvent;
+import com.pmj.template.repository.UserNames;
+import com.pmj.template.repository.UserRepository;
+import com.pmj.template.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Answers "is this username / email still free?" for the signup form.
+ * Names that were never registered are answered from Bloom filters without touching the database;
+ * only possible matches, a small fraction of the checks, fall back to an exists-query.
+ * The filters are built from the users table at startup and kept up to date from {@link UserChangedEvent}s.
+ * Users created or renamed on other instances are picked up every refresh interval by their updated_at;
+ * until then such a name can be reported as available, and signing up with it fails on the unique constraint.
+ */
+@Service
+public class AvailabilityService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityService.class);
+
+    // Each refresh re-reads this much before the previous one, for transactions that committed late
+    // and for clock differences between instances; adding a name twice is harmless
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final Duration refreshInterval;
+
+    private final Counter usernameFilterMisses;
+    private final Counter usernameDatabaseChecks;
+    private final Counter emailFilterMisses;
+    private final Counter emailDatabaseChecks;
+
+    private volatile BloomFilter usernames;
+    private volatile BloomFilter emails;
+
+    // Until the filters have been filled every check goes to the database
+    private volatile boolean ready;
+
+    // Names changed at or after this time have not been read by a build or refresh yet
+    private volatile LocalDateTime refreshedUpTo;
+
+    private ScheduledExecutorService refresher;
+
+    public AvailabilityService(UserRepository userRepository,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.availability.expected-users:1000000}") long expectedUsers,
+                               @Value("${app.availability.false-positive-rate:0.01}") double falsePositiveRate,
+                               @Value("${app.availability.refresh-interval:10s}") Duration refreshInterval) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.refreshInterval = refreshInterval;
+        this.usernames = BloomFilter.create(expectedUsers, falsePositiveRate);
+        this.emails = BloomFilter.create(expectedUsers, falsePositiveRate);
+        this.usernameFilterMisses = checkCounter(meterRegistry, "username", "filter");
+        this.usernameDatabaseChecks = checkCounter(meterRegistry, "username", "database");
+        this.emailFilterMisses = checkCounter(meterRegistry, "email", "filter");
+        this.emailDatabaseChecks = checkCounter(meterRegistry, "email", "database");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildFilters() {
+        long startNanos = System.nanoTime();
+        BloomFilter newUsernames = BloomFilter.create(expectedUsers, falsePositiveRate);
+        BloomFilter newEmails = BloomFilter.create(expectedUsers, falsePositiveRate);
+
+        // Publish the new filters first so users created while the table is being read are not missed
+        ready = false;
+        usernames = newUsernames;
+        emails = newEmails;
+        refreshedUpTo = LocalDateTime.now();
+
+        long count = 0;
+        try (Stream<UserNames> names = userRepository.streamAllNames()) {
+            for (UserNames name : (Iterable<UserNames>) names::iterator) {
+                newUsernames.put(name.getUsername());
+                newEmails.put(name.getEmail());
+                count++;
+            }
+        }
+        ready = true;
+
+        if (count > expectedUsers) {
+            log.warn("{} users exceed app.availability.expected-users={}; availability checks will hit the "
+                    + "database more often until it is raised", count, expectedUsers);
+        }
+        log.info("Availability filters built from {} users in {} ms", count, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * Adds the names of users created or renamed since the last build or refresh, on any instance.
+     */
+    void refresh() {
+        LocalDateTime since = refreshedUpTo;
+        if (!ready || since == null) {
+            return;
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        BloomFilter currentUsernames = usernames;
+        BloomFilter currentEmails = emails;
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<UserNames> names = userRepository.streamNamesChangedSince(since.minus(REFRESH_OVERLAP))) {
+                names.forEach(name -> {
+                    currentUsernames.put(name.getUsername());
+                    currentEmails.put(name.getEmail());
+                });
+            }
+        });
+        refreshedUpTo = startedAt;
+    }
+
+    // Names are unique regardless of case, so both checks compare normalized values
+    public boolean isUsernameAvailable(String username) {
+        String normalized = User.normalize(username);
+        if (ready && !usernames.mightContain(normalized)) {
+            usernameFilterMisses.increment();
+            return true;
+        }
+        usernameDatabaseChecks.increment();
+        return !userRepository.existsByUsernameNormalized(normalized);
+    }
+
+    public boolean isEmailAvailable(String email) {
+        String normalized = User.normalize(email);
+        if (ready && !emails.mightContain(normalized)) {
+            emailFilterMisses.increment();
+            return true;
+        }
+        emailDatabaseChecks.increment();
+        return !userRepository.existsByEmailNormalized(normalized);
+    }
+
+    // Names created on this instance are in the filter as soon as their insert has committed.
+    // Old names of renamed or deleted users stay in the filter and just cost a database check.
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getUsername() != null) {
+            usernames.put(User.normalize(event.getUsername()));
+        }
+        if (event.getEmail() != null) {
+            emails.put(User.normalize(event.getEmail()));
+        }
+    }
+
+    @Override
+    public void start() {
+        if (refreshInterval.isZero() || refreshInterval.isNegative()) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "availability-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = refreshInterval.toMillis();
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException ex) {
+                log.warn("Could not refresh availability filters, will retry", ex);
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+            refresher = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return refresher != null;
+    }
+
+    private static Counter checkCounter(MeterRegistry meterRegistry, String field, String source) {
+        return Counter.builder("users.availability.checks")
+                .description("Availability checks, by whether the Bloom filter or the database answered them")
+                .tag("field", field)
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,168 @@
+package com.pmj.template.service;
+
+import com.pmj.template.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks each user's last login time and login count without writing to the database on the login path.
+ * Logins are merged into one pending slot per user (latest time wins, counts add up) and a background task
+ * writes the slots to the users table in JDBC batches every flush interval. Whatever is pending is written
+ * once more on shutdown, after the web server has stopped accepting requests.
+ */
+@Service
+public class LoginActivityRecorder implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginActivityRecorder.class);
+
+    // Keeps the later of the stored and the buffered time, so instances flushing out of order cannot move it back
+    private static final String UPDATE_ACTIVITY = "update users set "
+            + "last_login_at = case when last_login_at is null or last_login_at < ? then ? else last_login_at end, "
+            + "login_count = login_count + ? where id = ?";
+
+    // Stops after the web server (DEFAULT_PHASE - 2048), so logins during graceful shutdown are still flushed
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Duration flushInterval;
+    private final int batchSize;
+    private final ConcurrentHashMap<Long, PendingLogin> pending = new ConcurrentHashMap<>();
+
+    private final Timer flushTimer;
+    private final Counter failedFlushes;
+
+    private ScheduledExecutorService flusher;
+
+    public LoginActivityRecorder(JdbcTemplate jdbcTemplate,
+                                 EntityManagerFactory entityManagerFactory,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.login-activity.flush-interval:5s}") Duration flushInterval,
+                                 @Value("${app.login-activity.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+        this.flushTimer = Timer.builder("users.login-activity.flush")
+                .description("Time to write one batch of buffered login activity")
+                .register(meterRegistry);
+        this.failedFlushes = Counter.builder("users.login-activity.flush.failures")
+                .description("Batches of login activity that could not be written and were put back")
+                .register(meterRegistry);
+        Gauge.builder("users.login-activity.pending", pending, Map::size)
+                .description("Users with login activity not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    public void recordLogin(Long userId) {
+        pending.merge(userId, new PendingLogin(LocalDateTime.now(), 1), PendingLogin::merge);
+    }
+
+    /**
+     * Writes all pending slots. Each slot is removed atomically before it is written, so a login merged
+     * concurrently either lands in the removed slot or starts a new one for the next flush; none is lost.
+     */
+    public void flush() {
+        List<Map.Entry<Long, PendingLogin>> batch = new ArrayList<>(batchSize);
+        for (Long userId : pending.keySet()) {
+            PendingLogin login = pending.remove(userId);
+            if (login != null) {
+                batch.add(Map.entry(userId, login));
+            }
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<Map.Entry<Long, PendingLogin>> batch) {
+        try {
+            flushTimer.record(() -> jdbcTemplate.batchUpdate(UPDATE_ACTIVITY, batch, batch.size(), (ps, entry) -> {
+                Timestamp lastLoginAt = Timestamp.valueOf(entry.getValue().lastLoginAt());
+                ps.setTimestamp(1, lastLoginAt);
+                ps.setTimestamp(2, lastLoginAt);
+                ps.setLong(3, entry.getValue().count());
+                ps.setLong(4, entry.getKey());
+            }));
+        } catch (DataAccessException ex) {
+            // Put the batch back so the next flush retries it together with newer logins
+            failedFlushes.increment();
+            batch.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), PendingLogin::merge));
+            log.warn("Could not write login activity for {} users, will retry", batch.size(), ex);
+            return;
+        }
+        // The rows changed behind Hibernate's back; drop the cached copies so reads see the new values
+        batch.forEach(entry -> entityManagerFactory.getCache().evict(User.class, entry.getKey()));
+    }
+
+    @Override
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "login-activity-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flush, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(flushInterval.toMillis() + 10_000, TimeUnit.MILLISECONDS)) {
+                log.warn("Login activity flusher did not finish in time");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        flusher = null;
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return flusher != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private record PendingLogin(LocalDateTime lastLoginAt, long count) {
+
+        private PendingLogin merge(PendingLogin other) {
+            LocalDateTime latest = lastLoginAt.isAfter(other.lastLoginAt) ? lastLoginAt : other.lastLoginAt;
+            return new PendingLogin(latest, count + other.count);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.pmj.template.service;
+
+import com.pmj.template.entity.User;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+/**
+ * Tells which unique constraint of the users table an insert violated, for inserts made through JPA as well as
+ * plain JDBC.
+ */
+final class UniqueConstraints {
+
+    private UniqueConstraints() {
+    }
+
+    /**
+     * Returns {@link User#UK_USERNAME} or {@link User#UK_EMAIL}, or null if the exception is not a duplicate
+     * username or email.
+     */
+    static String violatedBy(DataIntegrityViolationException ex) {
+        // Databases report the constraint name in their own case (H2 also appends an index suffix);
+        // JDBC batch inserts only carry it in the driver's message
+        String constraint = ex.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                ? violation.getConstraintName()
+                : String.valueOf(ex.getMostSpecificCause().getMessage());
+        constraint = constraint.toLowerCase(Locale.ROOT);
+
+        if (constraint.contains(User.UK_USERNAME)) {
+            return User.UK_USERNAME;
+        }
+        if (constraint.contains(User.UK_EMAIL)) {
+            return User.UK_EMAIL;
+        }
+        return null;
+    }
+}
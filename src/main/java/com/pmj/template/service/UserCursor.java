@@ -0,0 +1,74 @@
+package com.pmj.template.service;
+
+import com.pmj.template.dto.request.UserSortField;
+import com.pmj.template.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a page in the user listing, encoded as an opaque URL-safe string.
+ * The sort field is part of the cursor so a cursor cannot be replayed against a different ordering.
+ */
+final class UserCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final UserSortField sort;
+    private final Long id;
+    private final LocalDateTime createdAt;
+
+    private UserCursor(UserSortField sort, Long id, LocalDateTime createdAt) {
+        this.sort = sort;
+        this.id = id;
+        this.createdAt = createdAt;
+    }
+
+    static UserCursor after(UserSortField sort, Long id, LocalDateTime createdAt) {
+        return new UserCursor(sort, id, createdAt);
+    }
+
+    Long getId() {
+        return id;
+    }
+
+    LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    String encode() {
+        String raw = sort == UserSortField.CREATED_AT
+                ? sort.name() + SEPARATOR + createdAt + SEPARATOR + id
+                : sort.name() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode()}; returns null for the first page.
+     */
+    static UserCursor decode(String cursor, UserSortField sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR);
+            if (!sort.name().equals(parts[0])) {
+                throw new BadRequestException("Cursor does not match sort field: " + sort.getParam());
+            }
+
+            if (sort == UserSortField.CREATED_AT && parts.length == 3) {
+                return new UserCursor(sort, Long.parseLong(parts[2]), LocalDateTime.parse(parts[1]));
+            }
+            if (sort == UserSortField.ID && parts.length == 2) {
+                return new UserCursor(sort, Long.parseLong(parts[1]), null);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new BadRequestException("Invalid cursor", ex);
+        }
+        throw new BadRequestException("Invalid cursor");
+    }
+}
@@ -0,0 +1,73 @@
+package com.pmj.template.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pmj.template.dto.response.UserResponse;
+import com.pmj.template.entity.User;
+import com.pmj.template.mapper.UserMapper;
+import com.pmj.template.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole user directory as NDJSON (one JSON object per line) while it is being read.
+ * Rows come from a server-side cursor and the persistence context is cleared as it goes,
+ * so memory use does not depend on the number of users. The export bypasses the second-level cache.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserExportService {
+
+    // Entities kept in the persistence context before it is cleared
+    private static final int CLEAR_INTERVAL = 500;
+
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final UserMapper userMapper;
+
+    @Transactional(readOnly = true)
+    public long exportUsers(OutputStream outputStream) throws IOException {
+        // Let the servlet container decide when to flush instead of flushing after every row
+        ObjectWriter writer = objectMapper.writerFor(UserResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        // The query's cache mode hint only lasts while the cursor is opened; rows are read later, as the stream
+        // is consumed, so the session itself must skip the second-level cache for the rest of the export
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode previousCacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+
+        long count = 0;
+        try (Stream<User> users = userRepository.streamAllByOrderByIdAsc();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, userMapper.toResponse(iterator.next()));
+                generator.writeRaw('\n');
+
+                if (++count % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+            generator.flush();
+        } finally {
+            session.setCacheMode(previousCacheMode);
+        }
+        return count;
+    }
+}
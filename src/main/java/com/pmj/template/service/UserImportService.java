@@ -0,0 +1,376 @@
+package com.pmj.template.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.pmj.template.dto.request.UserRequest;
+import com.pmj.template.dto.response.BulkImportResponse;
+import com.pmj.template.entity.Role;
+import com.pmj.template.entity.User;
+import com.pmj.template.event.UserChangedEvent;
+import com.pmj.template.exception.ServiceOverloadedException;
+import com.pmj.template.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk creation of users from NDJSON or CSV.
+ * Rows are parsed and validated one line at a time and written in chunks with JDBC batch inserts,
+ * which Hibernate cannot do for entities with IDENTITY ids. A chunk that hits a duplicate username or email
+ * is retried row by row so only the duplicates fail; any other database error aborts the import, leaving the
+ * chunks written before it in place.
+ */
+@Service
+public class UserImportService {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private static final String INSERT_USER = "insert into users (username, email, username_normalized, "
+            + "email_normalized, password, full_name, account_non_expired, account_non_locked, "
+            + "credentials_non_expired, enabled, security_version, role_mask, created_at, updated_at) "
+            + "values (?, ?, ?, ?, ?, ?, true, true, true, true, 0, ?, ?, ?)";
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final long HASHING_BACKOFF_MS = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final int hashingConcurrency;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectReader requestReader;
+    private final int batchSize;
+
+    private final Counter importedRows;
+    private final Counter failedRows;
+    private final Timer chunkTimer;
+
+    public UserImportService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             BoundedPasswordEncoder passwordEncoder,
+                             Validator validator,
+                             ApplicationEventPublisher eventPublisher,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.import.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.hashingConcurrency = passwordEncoder.getThreads();
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.requestReader = objectMapper.readerFor(UserRequest.class);
+        this.batchSize = batchSize;
+        this.importedRows = Counter.builder("users.import.rows")
+                .tag("outcome", "imported")
+                .register(meterRegistry);
+        this.failedRows = Counter.builder("users.import.rows")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("users.import.chunk")
+                .description("Time to hash and insert one chunk of imported users")
+                .register(meterRegistry);
+    }
+
+    public BulkImportResponse importUsers(InputStream body, Format format) throws IOException {
+        long startNanos = System.nanoTime();
+        ImportResult result = new ImportResult();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String[] csvHeader = format == Format.CSV ? readCsvHeader(reader) : null;
+
+            List<ImportRow> chunk = new ArrayList<>(batchSize);
+            String line;
+            long lineNumber = format == Format.CSV ? 1 : 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                result.received++;
+
+                ImportRow row = parseRow(line, lineNumber, format, csvHeader, result);
+                if (row != null) {
+                    chunk.add(row);
+                }
+                if (chunk.size() >= batchSize) {
+                    writeChunk(chunk, result);
+                    chunk = new ArrayList<>(batchSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, result);
+            }
+        }
+
+        long durationMs = (System.nanoTime() - startNanos) / 1_000_000;
+        return BulkImportResponse.builder()
+                .received(result.received)
+                .imported(result.imported)
+                .failed(result.failed)
+                .errors(result.errors)
+                .truncatedErrors(result.failed > result.errors.size())
+                .durationMs(durationMs)
+                .rowsPerSecond(durationMs == 0 ? result.imported : result.imported * 1000.0 / durationMs)
+                .build();
+    }
+
+    private ImportRow parseRow(String line, long lineNumber, Format format, String[] csvHeader, ImportResult result) {
+        UserRequest request;
+        try {
+            request = format == Format.CSV ? parseCsvRow(line, csvHeader) : requestReader.readValue(line);
+        } catch (IOException | IllegalArgumentException ex) {
+            result.reject(lineNumber, "Malformed row: " + ex.getMessage());
+            failedRows.increment();
+            return null;
+        }
+        if (request == null) {
+            result.reject(lineNumber, "Malformed row: empty record");
+            failedRows.increment();
+            return null;
+        }
+
+        Set<ConstraintViolation<UserRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            result.reject(lineNumber, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+            failedRows.increment();
+            return null;
+        }
+
+        int roleMask;
+        try {
+            roleMask = request.getRoles() == null || request.getRoles().isEmpty()
+                    ? Role.USER.mask()
+                    : Role.toMask(request.getRoles());
+        } catch (IllegalArgumentException ex) {
+            result.reject(lineNumber, "roles: " + ex.getMessage());
+            failedRows.increment();
+            return null;
+        }
+        return new ImportRow(lineNumber, request, roleMask);
+    }
+
+    private void writeChunk(List<ImportRow> chunk, ImportResult result) {
+        chunkTimer.record(() -> {
+            hashPasswords(chunk);
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertBatch(chunk));
+                chunk.forEach(row -> imported(row, result));
+            } catch (DataIntegrityViolationException ex) {
+                if (UniqueConstraints.violatedBy(ex) == null) {
+                    throw ex;
+                }
+                // Isolate the duplicates; the rest of the chunk goes in one row at a time
+                chunk.forEach(row -> insertRow(row, result));
+            }
+        });
+    }
+
+    private void insertRow(ImportRow row, ImportResult result) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertBatch(List.of(row)));
+            imported(row, result);
+        } catch (DataIntegrityViolationException ex) {
+            String constraint = UniqueConstraints.violatedBy(ex);
+            if (constraint == null) {
+                throw ex;
+            }
+            result.reject(row.line, User.UK_USERNAME.equals(constraint)
+                    ? "Username already exists"
+                    : "Email already exists");
+            failedRows.increment();
+        }
+    }
+
+    // BCrypt dominates the cost of an import. Hashes run on the shared hashing pool, at most one per pool thread
+    // in flight so its queue stays free for logins, instead of blocking common ForkJoinPool threads
+    private void hashPasswords(List<ImportRow> chunk) {
+        Deque<CompletableFuture<Void>> inFlight = new ArrayDeque<>(hashingConcurrency);
+        for (ImportRow row : chunk) {
+            if (inFlight.size() >= hashingConcurrency) {
+                await(inFlight.removeFirst());
+            }
+            inFlight.addLast(encodeWithBackoff(row.request.getPassword())
+                    .thenAccept(encoded -> row.encodedPassword = encoded));
+        }
+        inFlight.forEach(UserImportService::await);
+    }
+
+    // The import shares the bounded hashing pool with logins; back off instead of failing when it is full
+    private CompletableFuture<String> encodeWithBackoff(String rawPassword) {
+        while (true) {
+            try {
+                return passwordEncoder.encodeAsync(rawPassword);
+            } catch (ServiceOverloadedException ex) {
+                try {
+                    Thread.sleep(HASHING_BACKOFF_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private static void await(CompletableFuture<?> future) {
+        try {
+            future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void insertBatch(List<ImportRow> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate(INSERT_USER, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.request.getUsername());
+            ps.setString(2, row.request.getEmail());
+            ps.setString(3, User.normalize(row.request.getUsername()));
+            ps.setString(4, User.normalize(row.request.getEmail()));
+            ps.setString(5, row.encodedPassword);
+            ps.setString(6, row.request.getFullName());
+            ps.setInt(7, row.roleMask);
+            ps.setTimestamp(8, now);
+            ps.setTimestamp(9, now);
+        });
+    }
+
+    private void imported(ImportRow row, ImportResult result) {
+        result.imported++;
+        importedRows.increment();
+        eventPublisher.publishEvent(
+                UserChangedEvent.created(null, row.request.getUsername(), row.request.getEmail()));
+    }
+
+    private String[] readCsvHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            return new String[0];
+        }
+        return parseCsvLine(header).stream()
+                .map(String::trim)
+                .toArray(String[]::new);
+    }
+
+    // Columns: username, email, password, fullName, roles (separated by ';'), matched by header name
+    private UserRequest parseCsvRow(String line, String[] header) {
+        List<String> values = parseCsvLine(line);
+        if (values.size() != header.length) {
+            throw new IllegalArgumentException("expected " + header.length + " columns but found " + values.size());
+        }
+
+        UserRequest request = new UserRequest();
+        for (int i = 0; i < header.length; i++) {
+            String value = values.get(i);
+            switch (header[i]) {
+                case "username" -> request.setUsername(value);
+                case "email" -> request.setEmail(value);
+                case "password" -> request.setPassword(value);
+                case "fullName" -> request.setFullName(value);
+                case "roles" -> request.setRoles(value.isBlank()
+                        ? null
+                        : new HashSet<>(Arrays.asList(value.split(";"))));
+                default -> throw new IllegalArgumentException("unknown column '" + header[i] + "'");
+            }
+        }
+        return request;
+    }
+
+    // Minimal RFC 4180 field splitting: commas, double-quoted fields and "" escapes
+    private static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static final class ImportRow {
+        private final long line;
+        private final UserRequest request;
+        private final int roleMask;
+        private String encodedPassword;
+
+        private ImportRow(long line, UserRequest request, int roleMask) {
+            this.line = line;
+            this.request = request;
+            this.roleMask = roleMask;
+        }
+    }
+
+    private static final class ImportResult {
+        private long received;
+        private long imported;
+        private long failed;
+        private final List<BulkImportResponse.RowError> errors = new ArrayList<>();
+
+        private void reject(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BulkImportResponse.RowError(line, message));
+            }
+        }
+    }
+}
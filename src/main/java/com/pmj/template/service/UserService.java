@@ -2,26 +2,30 @@ package com.pmj.template.service;
 
 
 import com.pmj.template.dto.UserDto;
+import com.pmj.template.dto.request.SignupRequest;
 import com.pmj.template.dto.request.UserRequest;
+import com.pmj.template.dto.request.UserSortField;
+import com.pmj.template.dto.response.CursorPage;
 import com.pmj.template.dto.response.UserResponse;
-
-import java.util.List;
+import com.pmj.template.repository.UserVersion;
 
 public interface UserService {
 
     UserResponse createUser(UserRequest userRequest);
 
+    UserResponse registerUser(SignupRequest signupRequest);
+
     UserResponse getUserById(Long id);
 
     UserResponse getUserByUsername(String username);
 
-    List<UserResponse> getAllUsers();
+    UserVersion getUserVersionById(Long id);
 
-    UserResponse updateUser(Long id, UserDto userDto);
+    UserVersion getUserVersionByUsername(String username);
 
-    void deleteUser(Long id);
+    CursorPage<UserResponse> getAllUsers(String cursor, int size, UserSortField sort);
 
-    boolean existsByUsername(String username);
+    UserResponse updateUser(Long id, UserDto userDto);
 
-    boolean existsByEmail(String email);
+    void deleteUser(Long id);
 }
\ No newline at end of file
@@ -1,75 +1,170 @@
 package com.pmj.template.service;
 
 import com.pmj.template.dto.UserDto;
+import com.pmj.template.dto.request.SignupRequest;
 import com.pmj.template.dto.request.UserRequest;
+import com.pmj.template.dto.request.UserSortField;
+import com.pmj.template.dto.response.CursorPage;
 import com.pmj.template.dto.response.UserResponse;
+import com.pmj.template.entity.Role;
 import com.pmj.template.entity.User;
+import com.pmj.template.event.UserChangedEvent;
+import com.pmj.template.exception.BadRequestException;
 import com.pmj.template.exception.ResourceNotFoundException;
+import com.pmj.template.mapper.UserMapper;
 import com.pmj.template.repository.UserRepository;
+import com.pmj.template.repository.UserSummary;
+import com.pmj.template.repository.UserVersion;
+import com.pmj.template.util.AppConstants;
+import com.pmj.template.util.SingleFlight;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "user.service", description = "Time spent in each UserService method")
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserMapper userMapper;
+    private final SingleFlight<Long, UserResponse> userLoads;
+    private final SingleFlight<Long, UserVersion> userVersionLoads;
 
+    // Not transactional: hashing can take a while, including the wait for a hashing thread, and must not hold
+    // a connection meanwhile. The insert runs in the repository's own transaction
     @Override
-    @Transactional
     public UserResponse createUser(UserRequest userRequest) {
-        User user = User.builder()
-                .username(userRequest.getUsername())
-                .email(userRequest.getEmail())
-                .password(passwordEncoder.encode(userRequest.getPassword()))
-                .fullName(userRequest.getFullName())
-                .roles(userRequest.getRoles() != null ? userRequest.getRoles() : new HashSet<>())
-                .enabled(true)
-                .accountNonExpired(true)
-                .accountNonLocked(true)
-                .credentialsNonExpired(true)
-                .build();
+        int roleMask = userRequest.getRoles() == null || userRequest.getRoles().isEmpty()
+                ? Role.USER.mask()
+                : toRoleMask(userRequest.getRoles());
+        User user = userMapper.toEntity(userRequest, passwordEncoder.encode(userRequest.getPassword()), roleMask);
+
+        return insertUser(user);
+    }
+
+    // Not transactional, like createUser
+    @Override
+    public UserResponse registerUser(SignupRequest signupRequest) {
+        User user = userMapper.toEntity(
+                signupRequest, passwordEncoder.encode(signupRequest.getPassword()), Role.USER.mask());
 
-        if (user.getRoles().isEmpty()) {
-            user.getRoles().add("ROLE_USER");
+        return insertUser(user);
+    }
+
+    // A single INSERT instead of exists-checks followed by an insert; the unique constraints also settle
+    // concurrent signups for the same name, which the checks could not
+    private UserResponse insertUser(User user) {
+        User savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException ex) {
+            throw translateDuplicate(ex);
         }
 
-        User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(
+                UserChangedEvent.created(savedUser.getId(), savedUser.getUsername(), savedUser.getEmail()));
+        return userMapper.toResponse(savedUser);
+    }
 
-        return mapToUserResponse(savedUser);
+    private static RuntimeException translateDuplicate(DataIntegrityViolationException ex) {
+        String constraint = UniqueConstraints.violatedBy(ex);
+        if (User.UK_USERNAME.equals(constraint)) {
+            return new BadRequestException("Username is already taken!", ex);
+        }
+        if (User.UK_EMAIL.equals(constraint)) {
+            return new BadRequestException("Email is already in use!", ex);
+        }
+        return ex;
     }
 
+    // Not transactional, so a request waiting on a load already in flight for the same id does not acquire a
+    // connection for it. A connection the request used earlier stays pinned to it by open-in-view until the
+    // response is written, which is why getUserVersionById, called first by the controller, is coalesced too
     @Override
-    @Transactional(readOnly = true)
     public UserResponse getUserById(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        return userLoads.execute(id, () -> {
+            UserSummary user = userRepository.findSummaryById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
 
-        return mapToUserResponse(user);
+            return userMapper.toResponse(user);
+        });
     }
 
     @Override
     @Transactional(readOnly = true)
     public UserResponse getUserByUsername(String username) {
-        User user = userRepository.findByUsername(username)
+        UserSummary user = userRepository.findSummaryByUsernameNormalized(User.normalize(username))
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
 
-        return mapToUserResponse(user);
+        return userMapper.toResponse(user);
+    }
+
+    // Coalesced and not transactional, like getUserById
+    @Override
+    public UserVersion getUserVersionById(Long id) {
+        return userVersionLoads.execute(id, () -> userRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserVersion getUserVersionByUsername(String username) {
+        return userRepository.findVersionByUsernameNormalized(User.normalize(username))
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<UserResponse> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(this::mapToUserResponse)
+    public CursorPage<UserResponse> getAllUsers(String cursor, int size, UserSortField sort) {
+        int pageSize = Math.min(Math.max(size, 1), AppConstants.MAX_PAGE_SIZE);
+        UserCursor after = UserCursor.decode(cursor, sort);
+
+        // Fetch one extra row to find out whether another page follows
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<UserSummary> users;
+        if (sort == UserSortField.CREATED_AT) {
+            users = after == null
+                    ? userRepository.findFirstPageByCreatedAt(limit)
+                    : userRepository.findPageAfterCreatedAt(after.getCreatedAt(), after.getId(), limit);
+        } else {
+            users = userRepository.findPageAfterId(after == null ? 0L : after.getId(), limit);
+        }
+
+        boolean hasMore = users.size() > pageSize;
+        if (hasMore) {
+            users = users.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            UserSummary last = users.get(users.size() - 1);
+            nextCursor = UserCursor.after(sort, last.id(), last.createdAt()).encode();
+        }
+
+        List<UserResponse> items = users.stream()
+                .map(userMapper::toResponse)
                 .collect(Collectors.toList());
+
+        return CursorPage.<UserResponse>builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .size(items.size())
+                .build();
     }
 
     @Override
@@ -78,51 +173,49 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
 
-        user.setUsername(userDto.getUsername());
-        user.setEmail(userDto.getEmail());
-        user.setFullName(userDto.getFullName());
+        String previousUsername = user.getUsername();
+        String previousEmail = user.getEmail();
+        boolean securityRelevantChange = user.isEnabled() != userDto.isEnabled();
+
+        userMapper.updateEntity(userDto, user);
+
+        // Self-contained tokens carry the username and email, and @PreAuthorize checks rely on the username
+        securityRelevantChange |= !Objects.equals(previousUsername, user.getUsername())
+                || !Objects.equals(previousEmail, user.getEmail());
 
         if (userDto.getRoles() != null && !userDto.getRoles().isEmpty()) {
-            user.setRoles(userDto.getRoles());
+            int roleMask = toRoleMask(userDto.getRoles());
+            securityRelevantChange |= roleMask != user.getRoleMask();
+            user.setRoleMask(roleMask);
         }
 
-        user.setEnabled(userDto.isEnabled());
+        // Invalidate every token issued before a rename, role or status change
+        if (securityRelevantChange) {
+            user.setSecurityVersion(user.getSecurityVersion() + 1);
+        }
 
         User updatedUser = userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.updated(updatedUser.getId(),
+                updatedUser.getUsername(), updatedUser.getEmail(), previousUsername, previousEmail));
 
-        return mapToUserResponse(updatedUser);
+        return userMapper.toResponse(updatedUser);
     }
 
     @Override
     @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new ResourceNotFoundException("User not found with id: " + id);
-        }
-
-        userRepository.deleteById(id);
-    }
-
-    @Override
-    public boolean existsByUsername(String username) {
-        return userRepository.existsByUsername(username);
-    }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
 
-    @Override
-    public boolean existsByEmail(String email) {
-        return userRepository.existsByEmail(email);
+        userRepository.delete(user);
+        eventPublisher.publishEvent(UserChangedEvent.deleted(id, user.getUsername(), user.getEmail()));
     }
 
-    private UserResponse mapToUserResponse(User user) {
-        return UserResponse.builder()
-                .id(user.getId())
-                .username(user.getUsername())
-                .email(user.getEmail())
-                .fullName(user.getFullName())
-                .roles(user.getRoles())
-                .enabled(user.isEnabled())
-                .createdAt(user.getCreatedAt())
-                .updatedAt(user.getUpdatedAt())
-                .build();
+    private static int toRoleMask(Set<String> roles) {
+        try {
+            return Role.toMask(roles);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,4 +1,15 @@
 package com.pmj.template.util;
 
 public class AppConstants {
+
+    // Cache names; keep in line with spring.cache.cache-names
+    public static final String USER_PRINCIPALS_BY_ID_CACHE = "userPrincipalsById";
+    public static final String USER_PRINCIPALS_BY_LOGIN_CACHE = "userPrincipalsByLogin";
+
+    // Page sizes for cursor-paginated listings
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private AppConstants() {
+    }
 }
@@ -0,0 +1,74 @@
+-- Schema changes for existing PostgreSQL databases.
+-- Production runs with spring.jpa.hibernate.ddl-auto=validate, so apply these in order before deploying.
+
+-- Per-user security version embedded in tokens
+ALTER TABLE users ADD COLUMN IF NOT EXISTS security_version BIGINT NOT NULL DEFAULT 0;
+
+-- Keyset pagination of the user listing by creation time
+CREATE INDEX IF NOT EXISTS idx_users_created_at_id ON users (created_at, id);
+
+-- Roles stored as a bitmask on users (bit values from com.pmj.template.entity.Role: ROLE_USER = 1, ROLE_ADMIN = 2).
+-- Check for role names the application does not know before migrating; they are dropped:
+--   SELECT DISTINCT role FROM user_roles WHERE role NOT IN ('ROLE_USER', 'ROLE_ADMIN');
+ALTER TABLE users ADD COLUMN IF NOT EXISTS role_mask INTEGER NOT NULL DEFAULT 0;
+
+UPDATE users u
+SET role_mask = COALESCE((
+        SELECT bit_or(CASE r.role WHEN 'ROLE_USER' THEN 1 WHEN 'ROLE_ADMIN' THEN 2 ELSE 0 END)
+        FROM user_roles r
+        WHERE r.user_id = u.id), 0);
+
+-- Once no running instance reads user_roles any more:
+-- DROP TABLE user_roles;
+
+-- Give the unique constraints on username and email the names the application maps duplicate signups by
+DO $$
+DECLARE
+    target RECORD;
+    existing TEXT;
+BEGIN
+    FOR target IN SELECT * FROM (VALUES ('username', 'uk_users_username'), ('email', 'uk_users_email')) AS t(col, name)
+    LOOP
+        SELECT c.conname INTO existing
+        FROM pg_constraint c
+                 JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+        WHERE c.conrelid = 'users'::regclass
+          AND c.contype = 'u'
+          AND array_length(c.conkey, 1) = 1
+          AND a.attname = target.col;
+
+        IF existing IS NULL THEN
+            EXECUTE format('ALTER TABLE users ADD CONSTRAINT %I UNIQUE (%I)', target.name, target.col);
+        ELSIF existing <> target.name THEN
+            EXECUTE format('ALTER TABLE users RENAME CONSTRAINT %I TO %I', existing, target.name);
+        END IF;
+    END LOOP;
+END $$;
+
+-- Case-insensitive usernames and emails: lower-cased copies carry the unique constraints and serve logins.
+-- Accounts that differ only in case block the new constraints; find them before migrating:
+--   SELECT lower(username) FROM users GROUP BY 1 HAVING count(*) > 1;
+--   SELECT lower(email) FROM users GROUP BY 1 HAVING count(*) > 1;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS username_normalized VARCHAR(255);
+ALTER TABLE users ADD COLUMN IF NOT EXISTS email_normalized VARCHAR(255);
+
+UPDATE users
+SET username_normalized = lower(username),
+    email_normalized = lower(email)
+WHERE username_normalized IS NULL
+   OR email_normalized IS NULL;
+
+ALTER TABLE users ALTER COLUMN username_normalized SET NOT NULL;
+ALTER TABLE users ALTER COLUMN email_normalized SET NOT NULL;
+
+ALTER TABLE users DROP CONSTRAINT IF EXISTS uk_users_username;
+ALTER TABLE users DROP CONSTRAINT IF EXISTS uk_users_email;
+ALTER TABLE users ADD CONSTRAINT uk_users_username UNIQUE (username_normalized);
+ALTER TABLE users ADD CONSTRAINT uk_users_email UNIQUE (email_normalized);
+
+-- Login activity, written in batches by LoginActivityRecorder
+ALTER TABLE users ADD COLUMN IF NOT EXISTS last_login_at TIMESTAMP;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS login_count BIGINT NOT NULL DEFAULT 0;
+
+-- Availability filters pick up users created or renamed on other instances by updated_at
+CREATE INDEX IF NOT EXISTS idx_users_updated_at ON users (updated_at);
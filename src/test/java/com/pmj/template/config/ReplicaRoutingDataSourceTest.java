@@ -0,0 +1,222 @@
+package com.pmj.template.config;
+
+import com.pmj.template.repository.UserRepository;
+import com.pmj.template.security.CustomUserDetailsService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each data source is a separate H2 database whose single-row "node" table names it,
+ * so a query shows which database the router picked.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ReplicaRoutingDataSource router;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        if (router != null) {
+            router.destroy();
+        }
+        pools.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    void readOnlyTransactions_RoundRobin_AlternateBetweenReplicas() {
+        // Arrange
+        route(ReplicaRoutingDataSource.Balancing.ROUND_ROBIN, Duration.ZERO,
+                database("replica-1"), database("replica-2"));
+
+        // Act
+        List<String> nodes = List.of(readNode(), readNode(), readNode(), readNode());
+
+        // Assert
+        assertThat(nodes).containsExactly("replica-1", "replica-2", "replica-1", "replica-2");
+    }
+
+    @Test
+    void readWriteTransactionsAndNonTransactionalWork_UsePrimary() {
+        // Arrange
+        route(ReplicaRoutingDataSource.Balancing.ROUND_ROBIN, Duration.ZERO, database("replica-1"));
+
+        // Act
+        String inTransaction = readWrite.execute(status -> jdbcTemplate.queryForObject("select name from node", String.class));
+        String withoutTransaction = jdbcTemplate.queryForObject("select name from node", String.class);
+
+        // Assert
+        assertThat(inTransaction).isEqualTo("primary");
+        assertThat(withoutTransaction).isEqualTo("primary");
+    }
+
+    @Test
+    void readOnlyTransactions_LeastConnections_PreferIdleReplica() throws Exception {
+        // Arrange
+        HikariDataSource busy = database("replica-1");
+        route(ReplicaRoutingDataSource.Balancing.LEAST_CONNECTIONS, Duration.ZERO, busy, database("replica-2"));
+
+        // Act
+        List<String> nodes;
+        try (Connection held = busy.getConnection()) {
+            nodes = List.of(readNode(), readNode(), readNode());
+        }
+
+        // Assert
+        assertThat(nodes).containsOnly("replica-2");
+    }
+
+    @Test
+    void readOnlyTransactions_WhenReplicaIsDown_SkipItAndFallBackToPrimary() {
+        // Arrange
+        DataSource down = unreachable();
+        route(ReplicaRoutingDataSource.Balancing.ROUND_ROBIN, Duration.ZERO, down, database("replica-2"));
+
+        // Act
+        List<String> nodes = List.of(readNode(), readNode(), readNode());
+
+        // Assert
+        assertThat(nodes).containsOnly("replica-2");
+        assertThat(meterRegistry.get("datasource.routing.replica.failures").tag("target", "replica-1")
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void readOnlyTransactions_WhenNoReplicaIsAvailable_UsePrimary() {
+        // Arrange
+        DataSource down = unreachable();
+        route(ReplicaRoutingDataSource.Balancing.ROUND_ROBIN, Duration.ZERO, down);
+
+        // Act
+        String node = readNode();
+
+        // Assert
+        assertThat(node).isEqualTo("primary");
+        assertThat(meterRegistry.get("datasource.routing.connections").tag("reason", "no-replica")
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void readOnlyTransactions_AfterOwnWrite_StayOnPrimaryForWindow() {
+        // Arrange
+        route(ReplicaRoutingDataSource.Balancing.ROUND_ROBIN, Duration.ofMinutes(1), database("replica-1"));
+        authenticate("alice");
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("update node set name = name"));
+
+        // Act
+        String ownRead = readNode();
+        authenticate("bob");
+        String otherRead = readNode();
+
+        // Assert
+        assertThat(ownRead).isEqualTo("primary");
+        assertThat(otherRead).isEqualTo("replica-1");
+    }
+
+    @Test
+    void readOnlyTransactions_AfterRolledBackWrite_UseReplica() {
+        // Arrange
+        route(ReplicaRoutingDataSource.Balancing.ROUND_ROBIN, Duration.ofMinutes(1), database("replica-1"));
+        authenticate("alice");
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("update node set name = name");
+            status.setRollbackOnly();
+        });
+
+        // Act
+        String node = readNode();
+
+        // Assert
+        assertThat(node).isEqualTo("replica-1");
+    }
+
+    @Test
+    void credentialLookups_RunReadWrite_SoTheyAreRoutedToPrimary() throws Exception {
+        // Arrange
+        AnnotationTransactionAttributeSource attributes = new AnnotationTransactionAttributeSource();
+
+        // Act
+        TransactionAttribute repositoryLookup = attributes.getTransactionAttribute(
+                UserRepository.class.getMethod("findCredentialsByLogin", String.class), UserRepository.class);
+        TransactionAttribute serviceLookup = attributes.getTransactionAttribute(
+                CustomUserDetailsService.class.getMethod("loadUserByUsername", String.class),
+                CustomUserDetailsService.class);
+        TransactionAttribute summaryLookup = attributes.getTransactionAttribute(
+                UserRepository.class.getMethod("findSummaryById", Long.class), UserRepository.class);
+
+        // Assert
+        assertThat(repositoryLookup.isReadOnly()).isFalse();
+        assertThat(serviceLookup.isReadOnly()).isFalse();
+        assertThat(summaryLookup.isReadOnly()).isTrue();
+    }
+
+    private void route(ReplicaRoutingDataSource.Balancing balancing, Duration readYourWritesWindow,
+                       DataSource... replicas) {
+        Map<String, DataSource> named = new LinkedHashMap<>();
+        for (DataSource replica : replicas) {
+            named.put("replica-" + (named.size() + 1), replica);
+        }
+        router = new ReplicaRoutingDataSource(database("primary"), named, balancing, Duration.ofMinutes(1),
+                readYourWritesWindow, meterRegistry);
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(router);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    private String readNode() {
+        return readOnly.execute(status -> jdbcTemplate.queryForObject("select name from node", String.class));
+    }
+
+    private HikariDataSource database(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(2);
+        pools.add(dataSource);
+
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("create table node (name varchar(32))");
+        setup.update("insert into node (name) values (?)", name);
+        return dataSource;
+    }
+
+    // Fails like a replica that refuses connections
+    private static DataSource unreachable() {
+        return new DriverManagerDataSource("jdbc:unreachable:replica");
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(username, null, List.of()));
+    }
+}
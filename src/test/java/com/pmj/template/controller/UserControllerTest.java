@@ -3,13 +3,24 @@ package com.pmj.template.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pmj.template.dto.UserDto;
 import com.pmj.template.dto.request.UserRequest;
+import com.pmj.template.dto.request.UserSortField;
+import com.pmj.template.dto.response.CursorPage;
 import com.pmj.template.dto.response.UserResponse;
+import com.pmj.template.exception.ServiceOverloadedException;
+import com.pmj.template.repository.UserVersion;
+import com.pmj.template.security.JwtAuthenticationFilter;
+import com.pmj.template.service.UserExportService;
+import com.pmj.template.service.UserImportService;
 import com.pmj.template.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
@@ -25,11 +36,17 @@ import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(UserController.class)
+// The slice's default security stands in for the JWT filter, whose collaborators are not part of the slice.
+// JPA auditing is enabled on TemplateApplication, so its mapping context has to be mocked without JPA
+@WebMvcTest(controllers = UserController.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = JwtAuthenticationFilter.class))
+@MockBean(JpaMetamodelMappingContext.class)
 class UserControllerTest {
 
     @Autowired
@@ -41,6 +58,12 @@ class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private UserExportService userExportService;
+
+    @MockBean
+    private UserImportService userImportService;
+
     private UserResponse userResponse;
     private UserRequest userRequest;
     private UserDto userDto;
@@ -96,22 +119,72 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.data.email", is("test@example.com")));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void createUser_WhenPasswordHashingIsSaturated_ShouldReturn503WithRetryAfter() throws Exception {
+        when(userService.createUser(any(UserRequest.class)))
+                .thenThrow(new ServiceOverloadedException("Too many concurrent password operations, please retry shortly"));
+
+        mockMvc.perform(post("/api/users")
+                        .with(SecurityMockMvcRequestPostProcessors.csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.success", is(false)));
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void getUserById_ShouldReturnUser() throws Exception {
+        when(userService.getUserVersionById(1L)).thenReturn(new UserVersion(1L, userResponse.getUpdatedAt(), null));
         when(userService.getUserById(1L)).thenReturn(userResponse);
 
         mockMvc.perform(get("/api/users/1"))
                 .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
                 .andExpect(jsonPath("$.success", is(true)))
                 .andExpect(jsonPath("$.message", is("User retrieved successfully")))
                 .andExpect(jsonPath("$.data.id", is(1)))
                 .andExpect(jsonPath("$.data.username", is("testuser")));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getUserById_WhenETagMatches_ShouldReturnNotModifiedWithoutLoadingUser() throws Exception {
+        when(userService.getUserVersionById(1L)).thenReturn(new UserVersion(1L, userResponse.getUpdatedAt(), null));
+        when(userService.getUserById(1L)).thenReturn(userResponse);
+        String eTag = mockMvc.perform(get("/api/users/1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/users/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(userService, times(1)).getUserById(1L);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getUserById_WhenUserChangedSinceETag_ShouldReturnUser() throws Exception {
+        when(userService.getUserVersionById(1L)).thenReturn(new UserVersion(1L, userResponse.getUpdatedAt(), null));
+        when(userService.getUserById(1L)).thenReturn(userResponse);
+        String eTag = mockMvc.perform(get("/api/users/1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        when(userService.getUserVersionById(1L))
+                .thenReturn(new UserVersion(1L, userResponse.getUpdatedAt(), LocalDateTime.now()));
+
+        mockMvc.perform(get("/api/users/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.id", is(1)));
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void getUserByUsername_ShouldReturnUser() throws Exception {
+        when(userService.getUserVersionByUsername("testuser"))
+                .thenReturn(new UserVersion(1L, userResponse.getUpdatedAt(), null));
         when(userService.getUserByUsername("testuser")).thenReturn(userResponse);
 
         mockMvc.perform(get("/api/users/username/testuser"))
@@ -124,7 +197,7 @@ class UserControllerTest {
 
     @Test
     @WithMockUser(roles = "ADMIN")
-    void getAllUsers_ShouldReturnAllUsers() throws Exception {
+    void getAllUsers_ShouldReturnFirstPage() throws Exception {
         List<UserResponse> users = Arrays.asList(
                 userResponse,
                 UserResponse.builder()
@@ -136,16 +209,41 @@ class UserControllerTest {
                         .enabled(true)
                         .build()
         );
+        CursorPage<UserResponse> page = CursorPage.<UserResponse>builder()
+                .items(users)
+                .nextCursor("next")
+                .hasMore(true)
+                .size(2)
+                .build();
 
-        when(userService.getAllUsers()).thenReturn(users);
+        when(userService.getAllUsers(null, 2, UserSortField.ID)).thenReturn(page);
 
-        mockMvc.perform(get("/api/users"))
+        mockMvc.perform(get("/api/users").param("size", "2"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success", is(true)))
                 .andExpect(jsonPath("$.message", is("Users retrieved successfully")))
-                .andExpect(jsonPath("$.data", hasSize(2)))
-                .andExpect(jsonPath("$.data[0].id", is(1)))
-                .andExpect(jsonPath("$.data[1].id", is(2)));
+                .andExpect(jsonPath("$.data.items", hasSize(2)))
+                .andExpect(jsonPath("$.data.items[0].id", is(1)))
+                .andExpect(jsonPath("$.data.items[1].id", is(2)))
+                .andExpect(jsonPath("$.data.nextCursor", is("next")))
+                .andExpect(jsonPath("$.data.hasMore", is(true)));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getAllUsers_ShouldPassCursorAndSort() throws Exception {
+        CursorPage<UserResponse> page = CursorPage.<UserResponse>builder()
+                .items(List.of(userResponse))
+                .hasMore(false)
+                .size(1)
+                .build();
+
+        when(userService.getAllUsers("abc", 50, UserSortField.CREATED_AT)).thenReturn(page);
+
+        mockMvc.perform(get("/api/users").param("cursor", "abc").param("sort", "createdAt"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(1)))
+                .andExpect(jsonPath("$.data.hasMore", is(false)));
     }
 
     @Test
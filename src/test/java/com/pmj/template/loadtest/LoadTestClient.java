@@ -0,0 +1,99 @@
+package com.pmj.template.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Thin blocking HTTP client for the API under test. Response bodies are discarded unless the caller needs them,
+ * so the client itself adds as little as possible to the measured latency.
+ */
+final class LoadTestClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final URI baseUri;
+    private final ObjectMapper objectMapper;
+
+    LoadTestClient(URI baseUri, ObjectMapper objectMapper) {
+        this.baseUri = baseUri;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    int login(String usernameOrEmail, String password) throws IOException, InterruptedException {
+        return send(post("/api/auth/login", loginBody(usernameOrEmail, password)));
+    }
+
+    String obtainToken(String usernameOrEmail, String password) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(post("/api/auth/login", loginBody(usernameOrEmail, password)),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            // Include the body: a failed setup login is usually a misconfiguration the server describes there
+            throw new IllegalStateException("Login of " + usernameOrEmail + " failed with " + response.statusCode()
+                    + ": " + new String(response.body(), StandardCharsets.UTF_8));
+        }
+        JsonNode body = objectMapper.readTree(response.body());
+        return body.path("data").path("accessToken").asText();
+    }
+
+    int signup(String username, String email, String password) throws IOException, InterruptedException {
+        return send(post("/api/auth/signup", Map.of(
+                "username", username,
+                "email", email,
+                "password", password,
+                "fullName", "Load Test " + username)));
+    }
+
+    int get(String path, String token) throws IOException, InterruptedException {
+        return send(request(path, token).GET().build());
+    }
+
+    int put(String path, String token, Object body) throws IOException, InterruptedException {
+        return send(request(path, token)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build());
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest post(String path, Object body) {
+        try {
+            return request(path, null)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(baseUri.getPath() + path))
+                .timeout(REQUEST_TIMEOUT);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private static Map<String, String> loginBody(String usernameOrEmail, String password) {
+        return Map.of("usernameOrEmail", usernameOrEmail, "password", password);
+    }
+}
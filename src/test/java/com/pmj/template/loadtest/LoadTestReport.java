@@ -0,0 +1,72 @@
+package com.pmj.template.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Machine-readable result of a load test run, written as JSON so runs of different versions can be diffed.
+ * Latencies are in milliseconds and throughput in requests per second.
+ */
+record LoadTestReport(Instant startedAt,
+                      String javaVersion,
+                      int availableProcessors,
+                      boolean virtualThreads,
+                      Settings settings,
+                      List<WorkloadResult> workloads) {
+
+    record Settings(int users, int concurrency, double warmupSeconds, double durationSeconds) {
+
+        static Settings of(LoadTestSettings settings) {
+            return new Settings(settings.users(), settings.concurrency(),
+                    seconds(settings.warmup()), seconds(settings.duration()));
+        }
+    }
+
+    record WorkloadResult(String workload,
+                          double durationSeconds,
+                          long requests,
+                          long errors,
+                          double throughput,
+                          List<EndpointResult> endpoints) {
+
+        double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+    }
+
+    record EndpointResult(String endpoint,
+                          long requests,
+                          long errors,
+                          double throughput,
+                          Map<Integer, Long> statusCounts,
+                          Latency latencyMs) {
+
+        static EndpointResult of(String endpoint, LatencyRecorder recorder, Duration elapsed) {
+            Histogram histogram = recorder.histogram();
+            long requests = histogram.getTotalCount();
+            return new EndpointResult(endpoint, requests, recorder.errors(),
+                    requests / seconds(elapsed), recorder.statusCounts(), Latency.of(histogram));
+        }
+    }
+
+    record Latency(double mean, double p50, double p90, double p99, double p999, double max) {
+
+        static Latency of(Histogram histogram) {
+            return new Latency(
+                    histogram.getMean() / 1000.0,
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+        }
+    }
+
+    static double seconds(Duration duration) {
+        return duration.toNanos() / 1_000_000_000.0;
+    }
+}
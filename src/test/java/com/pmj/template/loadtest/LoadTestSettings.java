@@ -0,0 +1,36 @@
+package com.pmj.template.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Knobs of a load test run, read from system properties so they can be passed on the Maven command line,
+ * e.g. {@code mvn test -Ploadtest -Dloadtest.users=2000 -Dloadtest.concurrency=64 -Dloadtest.duration=2m}.
+ */
+record LoadTestSettings(int users,
+                        int concurrency,
+                        Duration warmup,
+                        Duration duration,
+                        List<Workload> workloads,
+                        double maxErrorRate,
+                        Path reportDirectory) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.users", 500),
+                Integer.getInteger("loadtest.concurrency", 32),
+                DurationStyle.detectAndParse(System.getProperty("loadtest.warmup", "5s")),
+                DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "30s")),
+                Arrays.stream(System.getProperty("loadtest.workloads", "login-heavy,read-heavy,write-heavy").split(","))
+                        .map(String::trim)
+                        .map(name -> Workload.valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_')))
+                        .toList(),
+                Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01")),
+                Path.of(System.getProperty("loadtest.report-dir", "target/loadtest")));
+    }
+}
@@ -0,0 +1,273 @@
+package com.pmj.template.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pmj.template.dto.request.UserRequest;
+import com.pmj.template.dto.response.BulkImportResponse;
+import com.pmj.template.entity.User;
+import com.pmj.template.loadtest.LoadTestReport.EndpointResult;
+import com.pmj.template.loadtest.LoadTestReport.WorkloadResult;
+import com.pmj.template.loadtest.Workload.Operation;
+import com.pmj.template.repository.UserRepository;
+import com.pmj.template.service.UserImportService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives mixed workloads against the running application over real HTTP and reports per-endpoint
+ * throughput and latency percentiles. Excluded from the normal build; run with {@code mvn test -Ploadtest}.
+ * <p>
+ * Workers run a closed loop (each sends its next request as soon as the previous one completes), so the
+ * percentiles describe service time at the configured concurrency rather than behaviour under a fixed arrival rate.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.springframework.web=WARN",
+        "logging.level.org.hibernate=WARN"
+})
+class UserApiLoadTest {
+
+    private static final String PASSWORD = "LoadTest-Password1";
+    private static final String ADMIN_USERNAME = "loadadmin";
+
+    // Users that receive a token up front and are used for authenticated reads and updates
+    private static final int MAX_TOKEN_HOLDERS = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final AtomicLong signupSequence = new AtomicLong();
+
+    private LoadTestClient client;
+    private List<SeededUser> users;
+    private List<SeededUser> tokenHolders;
+    private String adminToken;
+
+    @Test
+    void runWorkloads() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        Instant startedAt = Instant.now();
+
+        String contextPath = environment.getProperty("server.servlet.context-path", "");
+        client = new LoadTestClient(URI.create("http://localhost:" + port + contextPath), objectMapper);
+        seedUsers(settings.users());
+        obtainTokens(settings.concurrency());
+
+        List<WorkloadResult> results = new ArrayList<>();
+        for (Workload workload : settings.workloads()) {
+            run(workload, settings.concurrency(), settings.warmup());
+            results.add(run(workload, settings.concurrency(), settings.duration()));
+        }
+
+        LoadTestReport report = new LoadTestReport(startedAt,
+                System.getProperty("java.version"),
+                Runtime.getRuntime().availableProcessors(),
+                environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false),
+                LoadTestReport.Settings.of(settings),
+                results);
+        Path reportFile = writeReport(report, settings.reportDirectory());
+        printSummary(report, reportFile);
+
+        assertThat(results).allSatisfy(result -> {
+            assertThat(result.requests()).as(result.workload() + " requests").isPositive();
+            assertThat(result.errorRate()).as(result.workload() + " error rate").isLessThanOrEqualTo(settings.maxErrorRate());
+        });
+    }
+
+    private void seedUsers(int count) throws IOException {
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        writeLine(ndjson, new UserRequest(ADMIN_USERNAME, ADMIN_USERNAME + "@example.com", PASSWORD,
+                "Load Test Admin", Set.of("ROLE_ADMIN", "ROLE_USER")));
+        for (int i = 0; i < count; i++) {
+            writeLine(ndjson, new UserRequest("loaduser" + i, "loaduser" + i + "@example.com", PASSWORD,
+                    "Load Test User " + i, null));
+        }
+
+        BulkImportResponse imported = userImportService.importUsers(
+                new ByteArrayInputStream(ndjson.toByteArray()), UserImportService.Format.NDJSON);
+        assertThat(imported.getFailed()).as("seeding failures: %s", imported.getErrors()).isZero();
+
+        users = userRepository.findAll().stream()
+                .filter(user -> user.getUsername().startsWith("loaduser"))
+                .map(SeededUser::of)
+                .toList();
+    }
+
+    private void writeLine(ByteArrayOutputStream out, UserRequest request) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(request));
+        out.write('\n');
+    }
+
+    private void obtainTokens(int concurrency) throws Exception {
+        adminToken = client.obtainToken(ADMIN_USERNAME, PASSWORD);
+
+        List<SeededUser> holders = users.subList(0, Math.min(users.size(), MAX_TOKEN_HOLDERS));
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<SeededUser>> futures = new ArrayList<>();
+            for (SeededUser user : holders) {
+                futures.add(executor.submit(() -> user.withToken(client.obtainToken(user.username(), PASSWORD))));
+            }
+            List<SeededUser> withTokens = new ArrayList<>();
+            for (Future<SeededUser> future : futures) {
+                withTokens.add(future.get());
+            }
+            tokenHolders = withTokens;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private WorkloadResult run(Workload workload, int concurrency, Duration duration) throws Exception {
+        Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new LatencyRecorder());
+        }
+
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        Operation operation = workload.next(random);
+                        long requestStart = System.nanoTime();
+                        int status;
+                        try {
+                            status = execute(operation, random);
+                        } catch (IOException ex) {
+                            status = LatencyRecorder.IO_ERROR;
+                        }
+                        recorders.get(operation).record(System.nanoTime() - requestStart, status);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+
+        List<EndpointResult> endpoints = new ArrayList<>();
+        recorders.forEach((operation, recorder) -> {
+            EndpointResult endpoint = EndpointResult.of(operation.endpoint(), recorder, elapsed);
+            if (endpoint.requests() > 0) {
+                endpoints.add(endpoint);
+            }
+        });
+        long requests = endpoints.stream().mapToLong(EndpointResult::requests).sum();
+        long errors = endpoints.stream().mapToLong(EndpointResult::errors).sum();
+        return new WorkloadResult(workload.displayName(), LoadTestReport.seconds(elapsed), requests, errors,
+                requests / LoadTestReport.seconds(elapsed), endpoints);
+    }
+
+    private int execute(Operation operation, ThreadLocalRandom random) throws IOException, InterruptedException {
+        SeededUser self = tokenHolders.get(random.nextInt(tokenHolders.size()));
+        return switch (operation) {
+            case LOGIN -> {
+                SeededUser user = users.get(random.nextInt(users.size()));
+                yield client.login(random.nextBoolean() ? user.username() : user.email(), PASSWORD);
+            }
+            case SIGNUP -> {
+                String username = "signup" + signupSequence.incrementAndGet();
+                yield client.signup(username, username + "@example.com", PASSWORD);
+            }
+            case GET_USER -> client.get("/api/users/" + self.id(), self.token());
+            case GET_USER_BY_USERNAME -> client.get("/api/users/username/" + self.username(), self.token());
+            case LIST_USERS -> client.get("/api/users?size=50", adminToken);
+            case UPDATE_USER -> client.put("/api/users/" + self.id(), self.token(), Map.of(
+                    "username", self.username(),
+                    "email", self.email(),
+                    "fullName", "Load Test User " + random.nextInt(1_000_000),
+                    "enabled", true));
+        };
+    }
+
+    private Path writeReport(LoadTestReport report, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        String timestamp = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
+                .withZone(ZoneOffset.UTC)
+                .format(report.startedAt());
+        Path file = directory.resolve("loadtest-" + timestamp + ".json");
+        objectMapper.copy()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writerWithDefaultPrettyPrinter()
+                .writeValue(file.toFile(), report);
+        return file;
+    }
+
+    private static void printSummary(LoadTestReport report, Path reportFile) {
+        System.out.printf("%nLoad test (%d users, %d workers, virtual threads: %s)%n",
+                report.settings().users(), report.settings().concurrency(), report.virtualThreads());
+        for (WorkloadResult workload : report.workloads()) {
+            System.out.printf("%n%s: %d requests, %d errors, %.1f req/s%n",
+                    workload.workload(), workload.requests(), workload.errors(), workload.throughput());
+            System.out.printf("  %-36s %9s %8s %9s %9s %9s %9s%n",
+                    "endpoint", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+            for (EndpointResult endpoint : workload.endpoints()) {
+                System.out.printf("  %-36s %9.1f %8d %9.2f %9.2f %9.2f %9.2f%n",
+                        endpoint.endpoint(), endpoint.throughput(), endpoint.errors(),
+                        endpoint.latencyMs().p50(), endpoint.latencyMs().p99(),
+                        endpoint.latencyMs().p999(), endpoint.latencyMs().max());
+            }
+        }
+        System.out.printf("%nReport written to %s%n", reportFile.toAbsolutePath());
+    }
+
+    private record SeededUser(long id, String username, String email, String token) {
+
+        static SeededUser of(User user) {
+            return new SeededUser(user.getId(), user.getUsername(), user.getEmail(), null);
+        }
+
+        SeededUser withToken(String token) {
+            return new SeededUser(id, username, email, token);
+        }
+    }
+}
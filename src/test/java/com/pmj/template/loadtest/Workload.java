@@ -0,0 +1,73 @@
+package com.pmj.template.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Request mixes driven against the API. Each worker picks the next operation at random using these weights.
+ */
+enum Workload {
+
+    LOGIN_HEAVY(Map.of(
+            Operation.LOGIN, 70,
+            Operation.GET_USER, 30)),
+
+    READ_HEAVY(Map.of(
+            Operation.GET_USER, 50,
+            Operation.GET_USER_BY_USERNAME, 20,
+            Operation.LIST_USERS, 25,
+            Operation.LOGIN, 5)),
+
+    WRITE_HEAVY(Map.of(
+            Operation.SIGNUP, 40,
+            Operation.UPDATE_USER, 40,
+            Operation.GET_USER, 20));
+
+    enum Operation {
+        LOGIN("POST /api/auth/login"),
+        SIGNUP("POST /api/auth/signup"),
+        GET_USER("GET /api/users/{id}"),
+        GET_USER_BY_USERNAME("GET /api/users/username/{username}"),
+        LIST_USERS("GET /api/users"),
+        UPDATE_USER("PUT /api/users/{id}");
+
+        private final String endpoint;
+
+        Operation(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        String endpoint() {
+            return endpoint;
+        }
+    }
+
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    Workload(Map<Operation, Integer> weights) {
+        Map<Operation, Integer> ordered = new EnumMap<>(weights);
+        this.operations = ordered.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += ordered.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    Operation next(ThreadLocalRandom random) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("Weights do not cover " + roll);
+    }
+
+    String displayName() {
+        return name().toLowerCase().replace('_', '-');
+    }
+}
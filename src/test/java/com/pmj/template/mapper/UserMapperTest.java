@@ -0,0 +1,103 @@
+package com.pmj.template.mapper;
+
+import com.pmj.template.dto.UserDto;
+import com.pmj.template.dto.request.SignupRequest;
+import com.pmj.template.dto.response.UserResponse;
+import com.pmj.template.entity.Role;
+import com.pmj.template.entity.User;
+import com.pmj.template.security.UserPrincipal;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserMapperTest {
+
+    private final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+
+    @Test
+    void toEntity_ShouldCreateEnabledUserWithEncodedPasswordAndMask() {
+        // Arrange
+        SignupRequest request = SignupRequest.builder()
+                .username("testuser")
+                .email("test@example.com")
+                .password("password123")
+                .fullName("Test User")
+                .build();
+
+        // Act
+        User user = userMapper.toEntity(request, "encodedPassword", Role.USER.mask());
+
+        // Assert
+        assertThat(user.getId()).isNull();
+        assertThat(user.getUsername()).isEqualTo("testuser");
+        assertThat(user.getPassword()).isEqualTo("encodedPassword");
+        assertThat(user.getRoles()).containsExactly("ROLE_USER");
+        assertThat(user.isEnabled()).isTrue();
+        assertThat(user.isAccountNonExpired()).isTrue();
+        assertThat(user.isAccountNonLocked()).isTrue();
+        assertThat(user.isCredentialsNonExpired()).isTrue();
+        assertThat(user.getSecurityVersion()).isZero();
+    }
+
+    @Test
+    void updateEntity_ShouldCopyEditableFieldsOnly() {
+        // Arrange
+        User user = User.builder()
+                .id(1L)
+                .username("testuser")
+                .email("test@example.com")
+                .password("encodedPassword")
+                .roleMask(Role.ADMIN.mask())
+                .enabled(true)
+                .securityVersion(3)
+                .build();
+        UserDto userDto = UserDto.builder()
+                .id(99L)
+                .username("renamed")
+                .email("renamed@example.com")
+                .fullName("Renamed User")
+                .roles(Set.of("ROLE_USER"))
+                .enabled(false)
+                .build();
+
+        // Act
+        userMapper.updateEntity(userDto, user);
+
+        // Assert
+        assertThat(user.getId()).isEqualTo(1L);
+        assertThat(user.getUsername()).isEqualTo("renamed");
+        assertThat(user.getEmail()).isEqualTo("renamed@example.com");
+        assertThat(user.getFullName()).isEqualTo("Renamed User");
+        assertThat(user.isEnabled()).isFalse();
+        assertThat(user.getPassword()).isEqualTo("encodedPassword");
+        assertThat(user.getRoleMask()).isEqualTo(Role.ADMIN.mask());
+        assertThat(user.getSecurityVersion()).isEqualTo(3);
+    }
+
+    @Test
+    void toResponseAndToPrincipal_ShouldShareRoleInstances() {
+        // Arrange
+        User user = User.builder()
+                .id(1L)
+                .username("testuser")
+                .email("test@example.com")
+                .password("encodedPassword")
+                .roleMask(Role.USER.mask() | Role.ADMIN.mask())
+                .enabled(true)
+                .build();
+
+        // Act
+        UserResponse response = userMapper.toResponse(user);
+        UserPrincipal principal = userMapper.toPrincipal(user);
+
+        // Assert
+        assertThat(response.getRoles()).isSameAs(Role.authorities(user.getRoleMask()));
+        assertThat(principal.getAuthorities()).isSameAs(userMapper.toPrincipal(user).getAuthorities());
+        assertThat(principal.getAuthorities()).extracting("authority")
+                .containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+        assertThat(principal.getPassword()).isEqualTo("encodedPassword");
+    }
+}
@@ -1,19 +1,27 @@
 package com.pmj.template.repository;
 
+import com.pmj.template.config.HibernateCacheConfig;
+import com.pmj.template.entity.Role;
 import com.pmj.template.entity.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(HibernateCacheConfig.class)
 class UserRepositoryTest {
 
     @Autowired
@@ -43,97 +51,159 @@ class UserRepositoryTest {
     }
 
     @Test
-    void findByUsername_ShouldReturnUser_WhenUserExists() {
+    void existsByUsernameNormalized_ShouldReturnTrue_WhenUsernameExists() {
         // Arrange
+        user.setUsername("TestUser");
         entityManager.persist(user);
         entityManager.flush();
 
         // Act
-        Optional<User> found = userRepository.findByUsername("testuser");
+        boolean exists = userRepository.existsByUsernameNormalized(User.normalize("TESTUSER"));
 
         // Assert
-        assertThat(found).isPresent();
-        assertThat(found.get().getUsername()).isEqualTo("testuser");
-        assertThat(found.get().getEmail()).isEqualTo("test@example.com");
+        assertThat(exists).isTrue();
     }
 
     @Test
-    void findByUsername_ShouldReturnEmpty_WhenUserDoesNotExist() {
+    void existsByUsernameNormalized_ShouldReturnFalse_WhenUsernameDoesNotExist() {
         // Act
-        Optional<User> found = userRepository.findByUsername("nonexistentuser");
+        boolean exists = userRepository.existsByUsernameNormalized("nonexistentuser");
 
         // Assert
-        assertThat(found).isEmpty();
+        assertThat(exists).isFalse();
     }
 
     @Test
-    void findByEmail_ShouldReturnUser_WhenUserExists() {
+    void existsByEmailNormalized_ShouldReturnTrue_WhenEmailExists() {
         // Arrange
+        user.setEmail("Test@Example.com");
         entityManager.persist(user);
         entityManager.flush();
 
         // Act
-        Optional<User> found = userRepository.findByEmail("test@example.com");
+        boolean exists = userRepository.existsByEmailNormalized(User.normalize("test@EXAMPLE.com"));
 
         // Assert
-        assertThat(found).isPresent();
-        assertThat(found.get().getUsername()).isEqualTo("testuser");
-        assertThat(found.get().getEmail()).isEqualTo("test@example.com");
+        assertThat(exists).isTrue();
     }
 
     @Test
-    void existsByUsername_ShouldReturnTrue_WhenUsernameExists() {
-        // Arrange
-        entityManager.persist(user);
-        entityManager.flush();
-
+    void existsByEmailNormalized_ShouldReturnFalse_WhenEmailDoesNotExist() {
         // Act
-        boolean exists = userRepository.existsByUsername("testuser");
+        boolean exists = userRepository.existsByEmailNormalized("nonexistent@example.com");
 
         // Assert
-        assertThat(exists).isTrue();
+        assertThat(exists).isFalse();
     }
 
     @Test
-    void existsByUsername_ShouldReturnFalse_WhenUsernameDoesNotExist() {
+    void save_ShouldPersistUser() {
         // Act
-        boolean exists = userRepository.existsByUsername("nonexistentuser");
+        User savedUser = userRepository.save(user);
 
         // Assert
-        assertThat(exists).isFalse();
+        assertThat(savedUser).isNotNull();
+        assertThat(savedUser.getId()).isNotNull();
+        assertThat(savedUser.getUsername()).isEqualTo("testuser");
+        assertThat(savedUser.getEmail()).isEqualTo("test@example.com");
     }
 
     @Test
-    void existsByEmail_ShouldReturnTrue_WhenEmailExists() {
+    void findPageAfterId_ShouldLoadRolesWithConstantStatementCount_RegardlessOfPageSize() {
         // Arrange
-        entityManager.persist(user);
+        for (int i = 0; i < 40; i++) {
+            entityManager.persist(User.builder()
+                    .username("user" + i)
+                    .email("user" + i + "@example.com")
+                    .password("password123")
+                    .roles(new HashSet<>(Set.of("ROLE_USER")))
+                    .enabled(true)
+                    .build());
+        }
         entityManager.flush();
 
         // Act
-        boolean exists = userRepository.existsByEmail("test@example.com");
+        long smallPage = statementsToListWithRoles(5);
+        long largePage = statementsToListWithRoles(40);
+
+        // Assert: roles are part of the users row, so one query regardless of the page size
+        assertThat(smallPage).isEqualTo(1);
+        assertThat(largePage).isEqualTo(1);
+    }
+
+    @Test
+    void findById_ShouldLoadRolesInSingleStatement() {
+        // Arrange
+        Long id = entityManager.persistAndFlush(user).getId();
+        entityManager.clear();
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        // Act
+        User found = userRepository.findById(id).orElseThrow();
 
         // Assert
-        assertThat(exists).isTrue();
+        assertThat(found.getRoles()).containsExactly("ROLE_USER");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
     }
 
     @Test
-    void existsByEmail_ShouldReturnFalse_WhenEmailDoesNotExist() {
+    void findCredentialsByLogin_ShouldMatchUsernameOrEmailIgnoringCaseInSingleStatement() {
+        // Arrange
+        entityManager.persistAndFlush(user);
+        entityManager.clear();
+        Statistics statistics = statistics();
+        statistics.clear();
+
         // Act
-        boolean exists = userRepository.existsByEmail("nonexistent@example.com");
+        List<UserCredentials> byUsername = userRepository.findCredentialsByLogin(User.normalize("TestUser"));
+        List<UserCredentials> byEmail = userRepository.findCredentialsByLogin(User.normalize("Test@Example.com"));
 
         // Assert
-        assertThat(exists).isFalse();
+        assertThat(byUsername).singleElement().satisfies(credentials -> {
+            assertThat(credentials.username()).isEqualTo("testuser");
+            assertThat(credentials.password()).isEqualTo("password123");
+            assertThat(credentials.roleMask()).isEqualTo(user.getRoleMask());
+        });
+        assertThat(byEmail).singleElement().extracting(UserCredentials::email).isEqualTo("test@example.com");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
     }
 
     @Test
-    void save_ShouldPersistUser() {
+    void findSummaryById_ShouldReadColumnsWithoutManagingEntity() {
+        // Arrange
+        Long id = entityManager.persistAndFlush(user).getId();
+        entityManager.clear();
+        Statistics statistics = statistics();
+        statistics.clear();
+
         // Act
-        User savedUser = userRepository.save(user);
+        Optional<UserSummary> found = userRepository.findSummaryById(id);
 
         // Assert
-        assertThat(savedUser).isNotNull();
-        assertThat(savedUser.getId()).isNotNull();
-        assertThat(savedUser.getUsername()).isEqualTo("testuser");
-        assertThat(savedUser.getEmail()).isEqualTo("test@example.com");
+        assertThat(found).isPresent();
+        assertThat(found.get().username()).isEqualTo("testuser");
+        assertThat(found.get().createdAt()).isNotNull();
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private long statementsToListWithRoles(int pageSize) {
+        entityManager.clear();
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        List<UserSummary> page = userRepository.findPageAfterId(0L, PageRequest.of(0, pageSize));
+        page.forEach(found -> assertThat(Role.authorities(found.roleMask())).containsExactly("ROLE_USER"));
+
+        assertThat(page).hasSize(pageSize);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Statistics statistics() {
+        return entityManager.getEntityManager()
+                .getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
     }
-}
\ No newline at end of file
+}
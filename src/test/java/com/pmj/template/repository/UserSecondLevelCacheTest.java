@@ -0,0 +1,106 @@
+package com.pmj.template.repository;
+
+import com.pmj.template.config.HibernateCacheConfig;
+import com.pmj.template.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs without the test transaction: entries only become visible to other transactions once the
+ * transaction that cached them has completed, as in the application.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserSecondLevelCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .username("CachedUser")
+                .email("cached@example.com")
+                .password("password123")
+                .roles(Set.of("ROLE_USER"))
+                .enabled(true)
+                .build());
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void findById_SecondLoad_ShouldBeServedFromCache() {
+        // Arrange
+        userRepository.findById(user.getId());
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        // Act
+        User found = userRepository.findById(user.getId()).orElseThrow();
+
+        // Assert
+        assertThat(found.getUsername()).isEqualTo("CachedUser");
+        assertThat(found.getRoleMask()).isEqualTo(user.getRoleMask());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics(User.CACHE_REGION).getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findById_AfterUpdate_ShouldReturnUpdatedUser() {
+        // Arrange
+        userRepository.findById(user.getId());
+        User renamed = userRepository.findById(user.getId()).orElseThrow();
+        renamed.setUsername("RenamedUser");
+        userRepository.save(renamed);
+
+        // Act & Assert
+        assertThat(userRepository.findById(user.getId()))
+                .hasValueSatisfying(found -> assertThat(found.getUsername()).isEqualTo("RenamedUser"));
+    }
+
+    @Test
+    void projectionReads_ShouldNeitherLoadNorCacheEntities() {
+        // Arrange
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        // Act
+        userRepository.findSummaryById(user.getId());
+        userRepository.findSummaryByUsernameNormalized("cacheduser");
+        userRepository.findVersionById(user.getId());
+        userRepository.findCredentialsByLogin("cached@example.com");
+
+        // Assert
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getSecondLevelCachePutCount()).isZero();
+        assertThat(entityManagerFactory.getCache().contains(User.class, user.getId())).isFalse();
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
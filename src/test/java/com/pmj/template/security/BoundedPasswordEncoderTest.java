@@ -0,0 +1,111 @@
+package com.pmj.template.security;
+
+import com.pmj.template.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Holds every hash until released, so tests can fill the pool and its queue
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final PasswordEncoder blockingDelegate = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "encoded:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    };
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.destroy();
+    }
+
+    @Test
+    void encode_ShouldReturnDelegateResult() {
+        // Arrange
+        release.countDown();
+        encoder = new BoundedPasswordEncoder(blockingDelegate, 1, 1, Duration.ofSeconds(5), meterRegistry);
+
+        // Act & Assert
+        assertThat(encoder.encode("secret")).isEqualTo("encoded:secret");
+        assertThat(encoder.matches("secret", "encoded:secret")).isTrue();
+    }
+
+    @Test
+    void encode_WhenPoolAndQueueAreFull_ShouldFailFastWithServiceOverloaded() throws InterruptedException {
+        // Arrange
+        encoder = new BoundedPasswordEncoder(blockingDelegate, 1, 1, Duration.ofSeconds(5), meterRegistry);
+        CompletableFuture<String> running = encoder.encodeAsync("first");
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = encoder.encodeAsync("second");
+
+        // Act & Assert
+        assertThatThrownBy(() -> encoder.encode("third"))
+                .isInstanceOf(ServiceOverloadedException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThatThrownBy(() -> encoder.encodeAsync("fourth"))
+                .isInstanceOf(ServiceOverloadedException.class);
+        assertThat(meterRegistry.get("password.encoder.rejected").counter().count()).isEqualTo(2);
+
+        release.countDown();
+        assertThat(running.join()).isEqualTo("encoded:first");
+        assertThat(queued.join()).isEqualTo("encoded:second");
+    }
+
+    @Test
+    void encode_WhenHashTakesLongerThanTimeout_ShouldFailWithServiceOverloadedAndFreeThePool()
+            throws InterruptedException {
+        // Arrange
+        encoder = new BoundedPasswordEncoder(blockingDelegate, 1, 1, Duration.ofMillis(100), meterRegistry);
+
+        // Act & Assert
+        assertThatThrownBy(() -> encoder.encode("secret"))
+                .isInstanceOf(ServiceOverloadedException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+        assertThat(meterRegistry.get("password.encoder.rejected").counter().count()).isEqualTo(1);
+
+        // The timed-out hash is cancelled, so the pool thread is interrupted and becomes free again
+        awaitNoActiveHashes();
+    }
+
+    private void awaitNoActiveHashes() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("executor.active").tag("name", "password.hashing").gauge().value() > 0) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Timed out waiting for the hashing pool to become idle");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.pmj.template.security;
+
+import com.pmj.template.entity.User;
+import com.pmj.template.event.UserChangedEvent;
+import com.pmj.template.mapper.UserMapper;
+import com.pmj.template.repository.UserRepository;
+import com.pmj.template.util.AppConstants;
+import com.pmj.template.util.SingleFlight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomUserDetailsServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final ConcurrentMapCacheManager cacheManager =
+            new ConcurrentMapCacheManager(AppConstants.USER_PRINCIPALS_BY_ID_CACHE);
+    private final PrincipalCacheEvictor principalCacheEvictor = new PrincipalCacheEvictor(cacheManager);
+
+    private CustomUserDetailsService userDetailsService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        userDetailsService = new CustomUserDetailsService(userRepository, Mappers.getMapper(UserMapper.class),
+                new SingleFlight<>("principal", Duration.ofSeconds(1), new SimpleMeterRegistry()),
+                cacheManager, principalCacheEvictor);
+
+        user = User.builder()
+                .id(1L)
+                .username("alice")
+                .email("alice@example.com")
+                .password("encodedPassword")
+                .roles(Set.of("ROLE_USER"))
+                .enabled(true)
+                .accountNonExpired(true)
+                .accountNonLocked(true)
+                .credentialsNonExpired(true)
+                .build();
+    }
+
+    @Test
+    void loadUserById_ShouldCachePrincipal() {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        // Act
+        UserDetails first = userDetailsService.loadUserById(1L);
+        UserDetails second = userDetailsService.loadUserById(1L);
+
+        // Assert
+        assertThat(second).isSameAs(first);
+        assertThat(principalsById().get(1L)).isNotNull();
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void loadUserById_WhenUserChangesDuringLoad_ShouldNotCacheStalePrincipal() {
+        // Arrange: the load reads the user, then a change to it commits and is evicted before the load caches
+        when(userRepository.findById(1L)).thenAnswer(invocation -> {
+            principalCacheEvictor.onUserChanged(UserChangedEvent.updated(1L, "alice", "alice@example.com",
+                    "alice", "alice@example.com"));
+            return Optional.of(user);
+        });
+
+        // Act
+        UserDetails principal = userDetailsService.loadUserById(1L);
+
+        // Assert
+        assertThat(principal.getUsername()).isEqualTo("alice");
+        assertThat(principalsById().get(1L)).isNull();
+    }
+
+    private Cache principalsById() {
+        return cacheManager.getCache(AppConstants.USER_PRINCIPALS_BY_ID_CACHE);
+    }
+}
@@ -0,0 +1,153 @@
+package com.pmj.template.security;
+
+import com.pmj.template.dto.UserDto;
+import com.pmj.template.entity.User;
+import com.pmj.template.event.UserChangedEvent;
+import com.pmj.template.mapper.UserMapper;
+import com.pmj.template.repository.UserRepository;
+import com.pmj.template.service.UserServiceImpl;
+import com.pmj.template.util.SingleFlight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+
+    @Mock
+    private TokenDenylist tokenDenylist;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+
+    private JwtTokenProvider tokenProvider;
+    private UserServiceImpl userService;
+    private JwtAuthenticationFilter filter;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider(meterRegistry);
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret",
+                "YourJwtSecretKeyHereMakeItAtLeast512BitsLongForTheHS512SigningAlgorithm");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 60_000L);
+        ReflectionTestUtils.setField(tokenProvider, "verifiedTokenCacheSize", 100L);
+        ReflectionTestUtils.setField(tokenProvider, "selfContained", true);
+        tokenProvider.init();
+
+        SecurityVersionCache securityVersionCache = new SecurityVersionCache(userRepository, Duration.ofSeconds(30), 100);
+        filter = new JwtAuthenticationFilter(tokenProvider, userDetailsService, securityVersionCache, tokenDenylist,
+                meterRegistry);
+
+        // User changes reach the version cache as they would after commit
+        userService = new UserServiceImpl(userRepository, passwordEncoder,
+                event -> securityVersionCache.onUserChanged((UserChangedEvent) event), userMapper,
+                new SingleFlight<>("user", Duration.ofSeconds(1), meterRegistry),
+                new SingleFlight<>("user-version", Duration.ofSeconds(1), meterRegistry));
+
+        user = User.builder()
+                .id(1L)
+                .username("alice")
+                .email("alice@example.com")
+                .password("encodedPassword")
+                .roles(Set.of("ROLE_USER"))
+                .enabled(true)
+                .accountNonExpired(true)
+                .accountNonLocked(true)
+                .credentialsNonExpired(true)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+        when(userRepository.findSecurityVersionById(1L))
+                .thenAnswer(invocation -> Optional.of(user.getSecurityVersion()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_ShouldAuthenticateFromClaims_WhenTokenIsCurrent() throws Exception {
+        // Arrange
+        String token = tokenFor(user);
+
+        // Act
+        Authentication authentication = filter(token);
+
+        // Assert
+        assertThat(authentication).isNotNull();
+        assertThat(((UserPrincipal) authentication.getPrincipal()).getUsername()).isEqualTo("alice");
+        assertThat(principalOutcomes(JwtAuthenticationFilter.PRINCIPAL_CLAIMS)).isEqualTo(1);
+    }
+
+    @Test
+    void doFilter_ShouldRejectSelfContainedTokenAsStale_AfterUserIsRenamed() throws Exception {
+        // Arrange
+        String token = tokenFor(user);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        userService.updateUser(1L, UserDto.builder()
+                .username("alice2")
+                .email("alice@example.com")
+                .roles(Set.of("ROLE_USER"))
+                .enabled(true)
+                .build());
+
+        // Act
+        Authentication authentication = filter(token);
+
+        // Assert
+        assertThat(authentication).isNull();
+        assertThat(principalOutcomes(JwtAuthenticationFilter.PRINCIPAL_STALE)).isEqualTo(1);
+    }
+
+    private String tokenFor(User user) {
+        UserPrincipal principal = userMapper.toPrincipal(user);
+        return tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private Authentication filter(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/username/alice");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private long principalOutcomes(String outcome) {
+        return meterRegistry.get("security.jwt.principal").tag("outcome", outcome).timer().count();
+    }
+}
@@ -0,0 +1,139 @@
+package com.pmj.template.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtTokenProviderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtTokenProvider tokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tokenProvider = new JwtTokenProvider(meterRegistry);
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret",
+                "YourJwtSecretKeyHereMakeItAtLeast512BitsLongForTheHS512SigningAlgorithm");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 60_000L);
+        ReflectionTestUtils.setField(tokenProvider, "verifiedTokenCacheSize", 100L);
+        tokenProvider.init();
+    }
+
+    @Test
+    void parseToken_ShouldReturnClaims_WhenTokenIsValid() {
+        // Arrange
+        String token = tokenProvider.generateToken(authenticationFor(42L));
+
+        // Act
+        Optional<Claims> claims = tokenProvider.parseToken(token);
+
+        // Assert
+        assertThat(claims).isPresent();
+        assertThat(claims.get().getSubject()).isEqualTo("42");
+    }
+
+    @Test
+    void init_ShouldRejectSecretShorterThan64Bytes() {
+        // Arrange
+        JwtTokenProvider weak = new JwtTokenProvider(meterRegistry);
+        ReflectionTestUtils.setField(weak, "jwtSecret", "x".repeat(63));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, weak::init);
+    }
+
+    @Test
+    void generateToken_ShouldGiveEachTokenItsOwnId() {
+        // Act
+        Claims first = tokenProvider.parseToken(tokenProvider.generateToken(authenticationFor(42L))).orElseThrow();
+        Claims second = tokenProvider.parseToken(tokenProvider.generateToken(authenticationFor(42L))).orElseThrow();
+
+        // Assert
+        assertThat(first.getId()).isNotBlank();
+        assertThat(second.getId()).isNotEqualTo(first.getId());
+    }
+
+    @Test
+    void resolveBearerToken_ShouldStripPrefix_OnlyForBearerHeaders() {
+        assertThat(JwtTokenProvider.resolveBearerToken("Bearer abc.def.ghi")).isEqualTo("abc.def.ghi");
+        assertThat(JwtTokenProvider.resolveBearerToken("Basic dXNlcjpwYXNz")).isNull();
+        assertThat(JwtTokenProvider.resolveBearerToken(null)).isNull();
+    }
+
+    @Test
+    void parseToken_ShouldReturnCachedClaims_WhenTokenIsRepeated() {
+        // Arrange
+        String token = tokenProvider.generateToken(authenticationFor(42L));
+
+        // Act
+        Claims first = tokenProvider.parseToken(token).orElseThrow();
+        Claims second = tokenProvider.parseToken(token).orElseThrow();
+
+        // Assert
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void parseToken_ShouldReturnEmpty_WhenSignatureIsTampered() {
+        // Arrange
+        String token = tokenProvider.generateToken(authenticationFor(42L));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        // Act & Assert
+        assertThat(tokenProvider.parseToken(tampered)).isEmpty();
+        assertThat(tokenProvider.validateToken(tampered)).isFalse();
+    }
+
+    @Test
+    void parseToken_ShouldReturnEmpty_WhenTokenIsMalformed() {
+        assertThat(tokenProvider.parseToken("not-a-jwt")).isEmpty();
+        assertThat(tokenProvider.parseToken("")).isEmpty();
+    }
+
+    @Test
+    void parseToken_ShouldTimeEachOutcome() {
+        // Arrange
+        String token = tokenProvider.generateToken(authenticationFor(42L));
+
+        // Act
+        tokenProvider.parseToken(token);
+        tokenProvider.parseToken(token);
+        tokenProvider.parseToken("not-a-jwt");
+
+        // Assert
+        assertThat(parseCount(JwtTokenProvider.PARSE_MISS)).isEqualTo(1);
+        assertThat(parseCount(JwtTokenProvider.PARSE_HIT)).isEqualTo(1);
+        assertThat(parseCount(JwtTokenProvider.PARSE_INVALID)).isEqualTo(1);
+    }
+
+    @Test
+    void getUserIdFromJWT_ShouldThrow_WhenTokenIsInvalid() {
+        assertThrows(JwtException.class, () -> tokenProvider.getUserIdFromJWT("not-a-jwt"));
+    }
+
+    private long parseCount(String outcome) {
+        return meterRegistry.get("security.jwt.parse").tag("outcome", outcome).timer().count();
+    }
+
+    private UsernamePasswordAuthenticationToken authenticationFor(Long id) {
+        UserPrincipal principal = UserPrincipal.builder()
+                .id(id)
+                .username("testuser")
+                .email("test@example.com")
+                .authorities(Collections.emptyList())
+                .enabled(true)
+                .build();
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+}
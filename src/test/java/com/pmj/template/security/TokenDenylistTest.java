@@ -0,0 +1,209 @@
+package com.pmj.template.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.SmartLifecycle;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenDenylistTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void isRevoked_ShouldOnlyMatchRevokedTokens() {
+        // Arrange
+        TokenDenylist denylist = denylist("");
+        Claims revoked = claims(UUID.randomUUID().toString(), Duration.ofMinutes(5));
+        Claims other = claims(UUID.randomUUID().toString(), Duration.ofMinutes(5));
+
+        // Act
+        boolean accepted = denylist.revoke(revoked);
+
+        // Assert
+        assertThat(accepted).isTrue();
+        assertThat(denylist.isRevoked(revoked)).isTrue();
+        assertThat(denylist.isRevoked(other)).isFalse();
+    }
+
+    @Test
+    void revoke_ShouldRefuseTokensWithoutUsableId() {
+        // Arrange
+        TokenDenylist denylist = denylist("");
+
+        // Act & Assert
+        assertThat(denylist.revoke(claims(null, Duration.ofMinutes(5)))).isFalse();
+        assertThat(denylist.revoke(claims("not-a-uuid", Duration.ofMinutes(5)))).isFalse();
+    }
+
+    @Test
+    void purgeExpired_ShouldDropEntriesOfExpiredTokens() {
+        // Arrange
+        TokenDenylist denylist = denylist("");
+        Claims expired = claims(UUID.randomUUID().toString(), Duration.ofMinutes(-1));
+        Claims live = claims(UUID.randomUUID().toString(), Duration.ofMinutes(5));
+        denylist.revoke(expired);
+        denylist.revoke(live);
+
+        // Act
+        denylist.purgeExpired();
+
+        // Assert
+        assertThat(denylist.isRevoked(expired)).isFalse();
+        assertThat(denylist.isRevoked(live)).isTrue();
+    }
+
+    @Test
+    void readSnapshot_ShouldRestoreUnexpiredRevocations() {
+        // Arrange
+        String snapshot = tempDir.resolve("denylist/token-denylist.bin").toString();
+        Claims live = claims(UUID.randomUUID().toString(), Duration.ofMinutes(5));
+        Claims expiring = claims(UUID.randomUUID().toString(), Duration.ofMillis(50));
+        TokenDenylist before = denylist(snapshot);
+        before.revoke(live);
+        before.revoke(expiring);
+        before.writeSnapshot();
+
+        // Act
+        sleep(100);
+        TokenDenylist after = denylist(snapshot);
+        after.readSnapshot();
+
+        // Assert
+        assertThat(after.isRevoked(live)).isTrue();
+        assertThat(after.isRevoked(expiring)).isFalse();
+    }
+
+    @Test
+    void start_AfterCrash_ShouldRestoreRevocationsFromJournal() {
+        // Arrange: revoke, then stop without a final snapshot, as a crash would
+        String snapshot = tempDir.resolve("token-denylist.bin").toString();
+        Claims claims = claims(UUID.randomUUID().toString(), Duration.ofMinutes(5));
+        TokenDenylist crashed = denylist(snapshot);
+        crashed.start();
+        crashed.revoke(claims);
+
+        // Act
+        TokenDenylist restarted = denylist(snapshot);
+        restarted.start();
+
+        // Assert
+        try {
+            assertThat(Files.exists(Path.of(snapshot))).isFalse();
+            assertThat(restarted.isRevoked(claims)).isTrue();
+        } finally {
+            restarted.stop();
+            crashed.stop();
+        }
+    }
+
+    @Test
+    void revoke_AfterStop_ShouldFailInsteadOfLosingTheRevocation() {
+        // Arrange
+        String snapshot = tempDir.resolve("token-denylist.bin").toString();
+        TokenDenylist denylist = denylist(snapshot);
+        denylist.start();
+        denylist.stop();
+
+        // Act & Assert
+        assertThatThrownBy(() -> denylist.revoke(claims(UUID.randomUUID().toString(), Duration.ofMinutes(5))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void getPhase_ShouldStartBeforeAndStopAfterWebServer() {
+        // Act & Assert: the servlet web server runs in phase DEFAULT_PHASE - 2048
+        assertThat(denylist("").getPhase()).isLessThan(SmartLifecycle.DEFAULT_PHASE - 2048);
+    }
+
+    @Test
+    void writeSnapshot_ShouldEmptyJournal() throws Exception {
+        // Arrange
+        String snapshot = tempDir.resolve("token-denylist.bin").toString();
+        Path journal = Path.of(snapshot + ".journal");
+        Claims claims = claims(UUID.randomUUID().toString(), Duration.ofMinutes(5));
+        TokenDenylist denylist = denylist(snapshot);
+        denylist.openJournal();
+        denylist.revoke(claims);
+        assertThat(Files.size(journal)).isEqualTo(24);
+
+        // Act
+        denylist.writeSnapshot();
+
+        // Assert
+        assertThat(Files.size(journal)).isZero();
+        TokenDenylist restored = denylist(snapshot);
+        restored.readSnapshot();
+        restored.replayJournal();
+        assertThat(restored.isRevoked(claims)).isTrue();
+    }
+
+    @Test
+    void replayJournal_ShouldIgnoreTornLastRecord() throws Exception {
+        // Arrange
+        String snapshot = tempDir.resolve("token-denylist.bin").toString();
+        Path journal = Path.of(snapshot + ".journal");
+        Claims claims = claims(UUID.randomUUID().toString(), Duration.ofMinutes(5));
+        TokenDenylist denylist = denylist(snapshot);
+        denylist.openJournal();
+        denylist.revoke(claims);
+        Files.write(journal, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        // Act
+        TokenDenylist restored = denylist(snapshot);
+        restored.replayJournal();
+
+        // Assert
+        assertThat(restored.isRevoked(claims)).isTrue();
+    }
+
+    @Test
+    void readSnapshot_ShouldStartEmpty_WhenSnapshotIsMissingOrForeign() throws Exception {
+        // Arrange
+        Path foreign = tempDir.resolve("foreign.bin");
+        Files.write(foreign, new byte[]{1, 2, 3, 4, 5});
+        TokenDenylist missing = denylist(tempDir.resolve("missing.bin").toString());
+        TokenDenylist corrupt = denylist(foreign.toString());
+        Claims claims = claims(UUID.randomUUID().toString(), Duration.ofMinutes(5));
+
+        // Act
+        missing.readSnapshot();
+        corrupt.readSnapshot();
+
+        // Assert
+        assertThat(missing.isRevoked(claims)).isFalse();
+        assertThat(corrupt.isRevoked(claims)).isFalse();
+    }
+
+    private static TokenDenylist denylist(String snapshotPath) {
+        return new TokenDenylist(new SimpleMeterRegistry(), snapshotPath, Duration.ofSeconds(30));
+    }
+
+    private static Claims claims(String id, Duration remaining) {
+        Claims claims = new DefaultClaims();
+        claims.setId(id);
+        claims.setSubject("42");
+        claims.setExpiration(new Date(System.currentTimeMillis() + remaining.toMillis()));
+        return claims;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.pmj.template.service;
+
+import com.pmj.template.event.UserChangedEvent;
+import com.pmj.template.repository.UserNames;
+import com.pmj.template.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AvailabilityService availabilityService;
+
+    @BeforeEach
+    void setUp() {
+        availabilityService = new AvailabilityService(userRepository, transactionManager, new SimpleMeterRegistry(),
+                1000, 0.001, Duration.ofSeconds(10));
+    }
+
+    @Test
+    void isUsernameAvailable_WhenNameWasNeverRegistered_ShouldNotQueryDatabase() {
+        // Arrange
+        when(userRepository.streamAllNames()).thenReturn(Stream.of(names("testuser", "test@example.com")));
+        availabilityService.buildFilters();
+
+        // Act
+        boolean available = availabilityService.isUsernameAvailable("someoneelse");
+
+        // Assert
+        assertTrue(available);
+        verify(userRepository, never()).existsByUsernameNormalized("someoneelse");
+    }
+
+    @Test
+    void isEmailAvailable_WhenEmailMightBeRegistered_ShouldAskDatabase() {
+        // Arrange
+        when(userRepository.streamAllNames()).thenReturn(Stream.of(names("testuser", "test@example.com")));
+        when(userRepository.existsByEmailNormalized("test@example.com")).thenReturn(true);
+        availabilityService.buildFilters();
+
+        // Act
+        boolean available = availabilityService.isEmailAvailable("Test@Example.com");
+
+        // Assert
+        assertFalse(available);
+        verify(userRepository).existsByEmailNormalized("test@example.com");
+    }
+
+    @Test
+    void isUsernameAvailable_BeforeFiltersAreBuilt_ShouldAskDatabase() {
+        // Arrange
+        when(userRepository.existsByUsernameNormalized("testuser")).thenReturn(true);
+
+        // Act
+        boolean available = availabilityService.isUsernameAvailable("TestUser");
+
+        // Assert
+        assertFalse(available);
+    }
+
+    @Test
+    void onUserChanged_ShouldAddNewNamesToFilters() {
+        // Arrange
+        when(userRepository.streamAllNames()).thenReturn(Stream.empty());
+        availabilityService.buildFilters();
+        when(userRepository.existsByUsernameNormalized("newuser")).thenReturn(true);
+
+        // Act
+        availabilityService.onUserChanged(UserChangedEvent.created(1L, "newuser", "new@example.com"));
+
+        // Assert
+        assertFalse(availabilityService.isUsernameAvailable("newuser"));
+        verify(userRepository).existsByUsernameNormalized("newuser");
+    }
+
+    @Test
+    void refresh_ShouldAddNamesRegisteredOnOtherInstances() {
+        // Arrange
+        when(userRepository.streamAllNames()).thenReturn(Stream.empty());
+        availabilityService.buildFilters();
+        when(userRepository.streamNamesChangedSince(any()))
+                .thenReturn(Stream.of(names("elsewhere", "elsewhere@example.com")));
+        when(userRepository.existsByUsernameNormalized("elsewhere")).thenReturn(true);
+
+        // Act
+        availabilityService.refresh();
+
+        // Assert
+        assertFalse(availabilityService.isUsernameAvailable("Elsewhere"));
+        verify(userRepository).existsByUsernameNormalized("elsewhere");
+    }
+
+    @Test
+    void refresh_ShouldOverlapThePreviousRefresh() {
+        // Arrange
+        when(userRepository.streamAllNames()).thenReturn(Stream.empty());
+        availabilityService.buildFilters();
+        when(userRepository.streamNamesChangedSince(any())).thenAnswer(invocation -> Stream.empty());
+        LocalDateTime before = LocalDateTime.now();
+
+        // Act
+        availabilityService.refresh();
+        availabilityService.refresh();
+
+        // Assert
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(userRepository, times(2)).streamNamesChangedSince(since.capture());
+        assertTrue(since.getAllValues().get(1).isBefore(before));
+    }
+
+    @Test
+    void refresh_BeforeFiltersAreBuilt_ShouldNotQueryDatabase() {
+        // Act
+        availabilityService.refresh();
+
+        // Assert
+        verify(userRepository, never()).streamNamesChangedSince(any());
+    }
+
+    private static UserNames names(String username, String email) {
+        return new UserNames() {
+            @Override
+            public String getUsername() {
+                return username;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+}
@@ -0,0 +1,118 @@
+package com.pmj.template.service;
+
+import com.pmj.template.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LoginActivityRecorderTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private Cache secondLevelCache;
+
+    @Captor
+    private ArgumentCaptor<Collection<Map.Entry<Long, ?>>> batchCaptor;
+
+    private LoginActivityRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        recorder = new LoginActivityRecorder(jdbcTemplate, entityManagerFactory, new SimpleMeterRegistry(),
+                Duration.ofSeconds(5), 500);
+    }
+
+    @Test
+    void flush_ShouldWriteOneRowPerUserInSingleBatch() {
+        // Arrange
+        when(entityManagerFactory.getCache()).thenReturn(secondLevelCache);
+        recorder.recordLogin(1L);
+        recorder.recordLogin(1L);
+        recorder.recordLogin(2L);
+
+        // Act
+        recorder.flush();
+
+        // Assert
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batchCaptor.capture(), anyInt(),
+                any());
+        assertThat(batchCaptor.getValue()).extracting(Map.Entry::getKey).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void flush_ShouldEvictWrittenUsersFromSecondLevelCache() {
+        // Arrange
+        when(entityManagerFactory.getCache()).thenReturn(secondLevelCache);
+        recorder.recordLogin(1L);
+        recorder.recordLogin(2L);
+
+        // Act
+        recorder.flush();
+
+        // Assert
+        verify(secondLevelCache).evict(User.class, 1L);
+        verify(secondLevelCache).evict(User.class, 2L);
+    }
+
+    @Test
+    void flush_WhenNothingIsPending_ShouldNotTouchDatabase() {
+        // Act
+        recorder.flush();
+
+        // Assert
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyCollection(), anyInt(),
+                any());
+    }
+
+    @Test
+    void flush_WhenWriteFails_ShouldRetryPendingLoginsOnNextFlush() {
+        // Arrange
+        recorder.recordLogin(1L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(),
+                any()))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(new int[][]{{1}});
+        when(entityManagerFactory.getCache()).thenReturn(secondLevelCache);
+
+        // Act
+        recorder.flush();
+        recorder.flush();
+
+        // Assert
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batchCaptor.capture(), anyInt(),
+                any());
+        List<Collection<Map.Entry<Long, ?>>> batches = batchCaptor.getAllValues();
+        assertThat(batches.get(1)).extracting(Map.Entry::getKey).containsExactly(1L);
+        verify(secondLevelCache, times(1)).evict(User.class, 1L);
+    }
+}
@@ -0,0 +1,171 @@
+package com.pmj.template.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pmj.template.config.HibernateCacheConfig;
+import com.pmj.template.entity.User;
+import com.pmj.template.mapper.UserMapperImpl;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({HibernateCacheConfig.class, UserExportService.class, UserMapperImpl.class,
+        UserExportServiceTest.FetchSizeRecorder.class})
+class UserExportServiceTest {
+
+    // More than two clear intervals, so the persistence context is cleared twice during the export
+    private static final int USER_COUNT = 1100;
+
+    @Autowired
+    private UserExportService exportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.batchUpdate("insert into users (username, email, username_normalized, email_normalized, "
+                        + "password, account_non_expired, account_non_locked, credentials_non_expired, enabled, "
+                        + "security_version, role_mask, created_at, updated_at) "
+                        + "values (?, ?, ?, ?, 'encoded', true, true, true, true, 0, 1, now(), now())",
+                IntStream.range(0, USER_COUNT).boxed().toList(), 500, (ps, i) -> {
+                    ps.setString(1, "user" + i);
+                    ps.setString(2, "user" + i + "@example.com");
+                    ps.setString(3, "user" + i);
+                    ps.setString(4, "user" + i + "@example.com");
+                });
+        FetchSizeRecorder.FETCH_SIZES.clear();
+    }
+
+    @Test
+    void exportUsers_ShouldWriteOneJsonLinePerUserInIdOrder() throws IOException {
+        // Arrange
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        long count = exportService.exportUsers(output);
+
+        // Assert
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(count).isEqualTo(USER_COUNT);
+        assertThat(lines).hasSize(USER_COUNT);
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertThat(first.get("username").asText()).isEqualTo("user0");
+        assertThat(first.has("password")).isFalse();
+        assertThat(lines).extracting(line -> objectMapper.readTree(line).get("id").asLong())
+                .isSorted()
+                .doesNotHaveDuplicates();
+    }
+
+    @Test
+    void exportUsers_ShouldReadThroughCursorWithFetchSizeAndClearPersistenceContext() throws IOException {
+        // Act
+        exportService.exportUsers(new ByteArrayOutputStream());
+
+        // Assert
+        assertThat(FetchSizeRecorder.FETCH_SIZES).containsValue(500);
+        // Cleared after rows 500 and 1000, so only the last 100 users are still managed
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isEqualTo(100);
+    }
+
+    @Test
+    void exportUsers_ShouldNotFillSecondLevelCache() throws IOException {
+        // Act
+        exportService.exportUsers(new ByteArrayOutputStream());
+
+        // Assert
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isPositive();
+        Long firstId = jdbcTemplate.queryForObject("select min(id) from users", Long.class);
+        assertThat(entityManagerFactory.getCache().contains(User.class, firstId)).isFalse();
+    }
+
+    // Wraps the test DataSource to record the fetch size Hibernate sets on each prepared statement
+    @TestConfiguration
+    static class FetchSizeRecorder {
+
+        static final Map<String, Integer> FETCH_SIZES = new ConcurrentHashMap<>();
+
+        @Bean
+        static BeanPostProcessor fetchSizeRecordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? proxy(DataSource.class, dataSource) : bean;
+                }
+            };
+        }
+
+        private static <T> T proxy(Class<T> type, T target) {
+            InvocationHandler handler = (proxy, method, args) -> {
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+                if (result instanceof Connection connection) {
+                    return proxy(Connection.class, connection);
+                }
+                if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                    return recordingFetchSize((String) args[0], statement);
+                }
+                return result;
+            };
+            return type.cast(Proxy.newProxyInstance(FetchSizeRecorder.class.getClassLoader(),
+                    new Class<?>[]{type}, handler));
+        }
+
+        private static PreparedStatement recordingFetchSize(String sql, PreparedStatement target) {
+            InvocationHandler handler = (proxy, method, args) -> {
+                if (method.getName().equals("setFetchSize")) {
+                    FETCH_SIZES.put(sql, (Integer) args[0]);
+                }
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+            };
+            return (PreparedStatement) Proxy.newProxyInstance(FetchSizeRecorder.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, handler);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.pmj.template.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pmj.template.dto.response.BulkImportResponse;
+import com.pmj.template.entity.Role;
+import com.pmj.template.exception.ServiceOverloadedException;
+import com.pmj.template.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceTest {
+
+    // Parameter positions of UserImportService.INSERT_USER
+    private static final int USERNAME = 1;
+    private static final int EMAIL = 2;
+    private static final int PASSWORD = 5;
+    private static final int FULL_NAME = 6;
+    private static final int ROLE_MASK = 7;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    // Parameters of every row in the batch inserts that succeeded
+    private final List<Map<Integer, Object>> insertedRows = new ArrayList<>();
+
+    private UserImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        when(passwordEncoder.getThreads()).thenReturn(2);
+        when(passwordEncoder.encodeAsync(anyString()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture("hashed:" + invocation.getArgument(0)));
+
+        importService = new UserImportService(jdbcTemplate, transactionManager, passwordEncoder,
+                Validation.buildDefaultValidatorFactory().getValidator(), eventPublisher, new ObjectMapper(),
+                new SimpleMeterRegistry(), 10);
+    }
+
+    @Test
+    void importUsers_Csv_ShouldMatchColumnsByHeaderAndUnquoteFields() throws IOException {
+        // Arrange
+        recordInserts();
+        String csv = """
+                email,username,password,fullName,roles
+                ann@example.com,ann,secret123,"Smith, Ann ""Annie\""",ROLE_USER;ROLE_ADMIN
+                bob@example.com,bob,secret456,,
+                """;
+
+        // Act
+        BulkImportResponse response = importService.importUsers(stream(csv), UserImportService.Format.CSV);
+
+        // Assert
+        assertThat(response.getReceived()).isEqualTo(2);
+        assertThat(response.getImported()).isEqualTo(2);
+        assertThat(response.getFailed()).isZero();
+        assertThat(insertedRows).hasSize(2);
+        assertThat(insertedRows.get(0))
+                .containsEntry(USERNAME, "ann")
+                .containsEntry(EMAIL, "ann@example.com")
+                .containsEntry(PASSWORD, "hashed:secret123")
+                .containsEntry(FULL_NAME, "Smith, Ann \"Annie\"")
+                .containsEntry(ROLE_MASK, Role.USER.mask() | Role.ADMIN.mask());
+        assertThat(insertedRows.get(1))
+                .containsEntry(USERNAME, "bob")
+                .containsEntry(ROLE_MASK, Role.USER.mask());
+    }
+
+    @Test
+    void importUsers_Csv_ShouldRejectRowsWithWrongColumnCount() throws IOException {
+        // Arrange
+        recordInserts();
+        String csv = """
+                username,email,password
+                ann,ann@example.com,secret123
+                bob,bob@example.com
+                """;
+
+        // Act
+        BulkImportResponse response = importService.importUsers(stream(csv), UserImportService.Format.CSV);
+
+        // Assert
+        assertThat(response.getImported()).isEqualTo(1);
+        assertThat(response.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getLine()).isEqualTo(3);
+            assertThat(error.getMessage()).contains("expected 3 columns but found 2");
+        });
+    }
+
+    @Test
+    void importUsers_Ndjson_ShouldRejectMalformedAndInvalidRowsWithTheirLineNumbers() throws IOException {
+        // Arrange
+        recordInserts();
+        String ndjson = """
+                {"username":"ann","email":"ann@example.com","password":"secret123"}
+                {"username":"bob",
+
+                {"username":"cyd","email":"not-an-email","password":"secret123"}
+                {"username":"dan","email":"dan@example.com","password":"secret123","roles":["ROLE_ROOT"]}
+                """;
+
+        // Act
+        BulkImportResponse response = importService.importUsers(stream(ndjson), UserImportService.Format.NDJSON);
+
+        // Assert
+        assertThat(response.getReceived()).isEqualTo(4);
+        assertThat(response.getImported()).isEqualTo(1);
+        assertThat(response.getFailed()).isEqualTo(3);
+        assertThat(response.getErrors()).extracting(BulkImportResponse.RowError::getLine).containsExactly(2L, 4L, 5L);
+        assertThat(response.getErrors()).extracting(BulkImportResponse.RowError::getMessage).satisfiesExactly(
+                message -> assertThat(message).startsWith("Malformed row"),
+                message -> assertThat(message).isEqualTo("email: Email should be valid"),
+                message -> assertThat(message).isEqualTo("roles: Unknown role: ROLE_ROOT"));
+        assertThat(insertedRows).extracting(row -> row.get(USERNAME)).containsExactly("ann");
+    }
+
+    @Test
+    void importUsers_WithDuplicates_ShouldRetryRowByRowAndFailOnlyTheDuplicates() throws IOException {
+        // Arrange
+        recordInserts(Map.of(
+                "taken", "Unique index or primary key violation: \"PUBLIC.UK_USERS_USERNAME_INDEX_4 ON "
+                        + "PUBLIC.USERS(USERNAME_NORMALIZED NULLS FIRST) VALUES ( /* 1 */ 'taken' )\"",
+                "reused", "duplicate key value violates unique constraint \"uk_users_email\""));
+        String ndjson = """
+                {"username":"ann","email":"ann@example.com","password":"secret123"}
+                {"username":"taken","email":"taken@example.com","password":"secret123"}
+                {"username":"reused","email":"used@example.com","password":"secret123"}
+                {"username":"bob","email":"bob@example.com","password":"secret123"}
+                """;
+
+        // Act
+        BulkImportResponse response = importService.importUsers(stream(ndjson), UserImportService.Format.NDJSON);
+
+        // Assert
+        assertThat(response.getImported()).isEqualTo(2);
+        assertThat(response.getFailed()).isEqualTo(2);
+        assertThat(response.getErrors())
+                .extracting(BulkImportResponse.RowError::getLine, BulkImportResponse.RowError::getMessage)
+                .containsExactly(tuple(2L, "Username already exists"), tuple(3L, "Email already exists"));
+        assertThat(insertedRows).extracting(row -> row.get(USERNAME)).containsExactly("ann", "bob");
+        // One batch for the chunk, then one per row
+        verify(jdbcTemplate, times(5)).batchUpdate(anyString(), anyCollection(), anyInt(),
+                any());
+    }
+
+    @Test
+    void importUsers_WhenInsertFailsForAnotherReason_ShouldAbortWithoutRowRetries() {
+        // Arrange
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(),
+                any()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        String ndjson = """
+                {"username":"ann","email":"ann@example.com","password":"secret123"}
+                {"username":"bob","email":"bob@example.com","password":"secret123"}
+                """;
+
+        // Act & Assert
+        assertThatThrownBy(() -> importService.importUsers(stream(ndjson), UserImportService.Format.NDJSON))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyCollection(), anyInt(),
+                any());
+    }
+
+    @Test
+    void importUsers_WhenHashingPoolIsFull_ShouldBackOffAndRetry() throws IOException {
+        // Arrange
+        recordInserts();
+        when(passwordEncoder.encodeAsync(anyString()))
+                .thenThrow(new ServiceOverloadedException("Too many concurrent password operations"))
+                .thenReturn(CompletableFuture.completedFuture("hashed"));
+        String ndjson = """
+                {"username":"ann","email":"ann@example.com","password":"secret123"}
+                """;
+
+        // Act
+        BulkImportResponse response = importService.importUsers(stream(ndjson), UserImportService.Format.NDJSON);
+
+        // Assert
+        assertThat(response.getImported()).isEqualTo(1);
+        assertThat(insertedRows).singleElement().satisfies(row -> assertThat(row).containsEntry(PASSWORD, "hashed"));
+        verify(passwordEncoder, times(2)).encodeAsync("secret123");
+    }
+
+    private void recordInserts() {
+        recordInserts(Map.of());
+    }
+
+    // Runs the service's statement setter for every row and records the parameters it binds. A batch containing
+    // one of the given usernames fails with the given driver message, as the database reports a unique violation
+    private void recordInserts(Map<String, String> duplicates) {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(),
+                any()))
+                .thenAnswer(invocation -> {
+                    Collection<Object> rows = invocation.getArgument(1);
+                    ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+                    List<Map<Integer, Object>> bound = new ArrayList<>();
+                    for (Object row : rows) {
+                        Map<Integer, Object> parameters = new HashMap<>();
+                        PreparedStatement statement = mock(PreparedStatement.class, call -> {
+                            if (call.getMethod().getName().startsWith("set")) {
+                                parameters.put(call.getArgument(0), call.getArgument(1));
+                            }
+                            return null;
+                        });
+                        setter.setValues(statement, row);
+                        bound.add(parameters);
+                    }
+
+                    for (Map<Integer, Object> parameters : bound) {
+                        String driverMessage = duplicates.get(parameters.get(USERNAME));
+                        if (driverMessage != null) {
+                            throw new DuplicateKeyException("Batch insert failed", new SQLException(driverMessage));
+                        }
+                    }
+                    insertedRows.addAll(bound);
+                    return new int[0][];
+                });
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
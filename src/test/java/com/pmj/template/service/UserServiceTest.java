@@ -1,25 +1,48 @@
 package com.pmj.template.service;
 
 import com.pmj.template.dto.UserDto;
+import com.pmj.template.dto.request.SignupRequest;
 import com.pmj.template.dto.request.UserRequest;
+import com.pmj.template.dto.request.UserSortField;
+import com.pmj.template.dto.response.CursorPage;
 import com.pmj.template.dto.response.UserResponse;
 import com.pmj.template.entity.User;
+import com.pmj.template.event.UserChangedEvent;
+import com.pmj.template.exception.BadRequestException;
 import com.pmj.template.exception.ResourceNotFoundException;
+import com.pmj.template.mapper.UserMapper;
 import com.pmj.template.repository.UserRepository;
+import com.pmj.template.repository.UserSummary;
+import com.pmj.template.repository.UserVersion;
+import com.pmj.template.util.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +54,22 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private SingleFlight<Long, UserResponse> userLoads =
+            new SingleFlight<>("user", Duration.ofSeconds(1), meterRegistry);
+
+    @Spy
+    private SingleFlight<Long, UserVersion> userVersionLoads =
+            new SingleFlight<>("user-version", Duration.ofSeconds(1), meterRegistry);
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -80,7 +119,7 @@ class UserServiceTest {
     void createUser_ShouldReturnCreatedUser() {
         // Arrange
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
-        when(userRepository.save(any(User.class))).thenReturn(user);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
 
         // Act
         UserResponse result = userService.createUser(userRequest);
@@ -95,13 +134,66 @@ class UserServiceTest {
         assertTrue(result.getRoles().contains("ROLE_USER"));
 
         verify(passwordEncoder, times(1)).encode("password123");
-        verify(userRepository, times(1)).save(any(User.class));
+        verify(userRepository, times(1)).saveAndFlush(any(User.class));
+    }
+
+    @Test
+    void createUser_WithUnknownRole_ShouldThrowBadRequest() {
+        // Arrange
+        userRequest.setRoles(Set.of("ROLE_SUPERUSER"));
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> userService.createUser(userRequest));
+        verify(passwordEncoder, never()).encode(any());
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+    }
+
+    @Test
+    void createUser_WhenUsernameIsTaken_ShouldThrowBadRequest() {
+        // Arrange
+        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(duplicate("UK_USERS_USERNAME_INDEX_4"));
+
+        // Act & Assert
+        BadRequestException ex = assertThrows(BadRequestException.class, () -> userService.createUser(userRequest));
+        assertEquals("Username is already taken!", ex.getMessage());
+        verify(eventPublisher, never()).publishEvent(any(UserChangedEvent.class));
+    }
+
+    @Test
+    void registerUser_ShouldCreateUserWithUserRole() {
+        // Arrange
+        SignupRequest signupRequest = new SignupRequest("newuser", "new@example.com", "password123", "New User");
+        when(passwordEncoder.encode("password123")).thenReturn("encodedPassword");
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        UserResponse result = userService.registerUser(signupRequest);
+
+        // Assert
+        assertEquals("newuser", result.getUsername());
+        assertEquals(Set.of("ROLE_USER"), result.getRoles());
+        assertTrue(result.isEnabled());
+        verify(eventPublisher, times(1)).publishEvent(any(UserChangedEvent.class));
+    }
+
+    @Test
+    void registerUser_WhenEmailIsInUse_ShouldThrowBadRequest() {
+        // Arrange
+        SignupRequest signupRequest = new SignupRequest("newuser", "test@example.com", "password123", null);
+        when(passwordEncoder.encode("password123")).thenReturn("encodedPassword");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(duplicate("uk_users_email"));
+
+        // Act & Assert
+        BadRequestException ex = assertThrows(BadRequestException.class,
+                () -> userService.registerUser(signupRequest));
+        assertEquals("Email is already in use!", ex.getMessage());
     }
 
     @Test
     void getUserById_WhenUserExists_ShouldReturnUser() {
         // Arrange
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findSummaryById(1L)).thenReturn(Optional.of(summaryOf(user)));
 
         // Act
         UserResponse result = userService.getUserById(1L);
@@ -110,14 +202,15 @@ class UserServiceTest {
         assertNotNull(result);
         assertEquals(1L, result.getId());
         assertEquals("testuser", result.getUsername());
+        assertEquals(Set.of("ROLE_USER"), result.getRoles());
 
-        verify(userRepository, times(1)).findById(1L);
+        verify(userRepository, times(1)).findSummaryById(1L);
     }
 
     @Test
     void getUserById_WhenUserDoesNotExist_ShouldThrowException() {
         // Arrange
-        when(userRepository.findById(999L)).thenReturn(Optional.empty());
+        when(userRepository.findSummaryById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         ResourceNotFoundException exception = assertThrows(
@@ -126,45 +219,111 @@ class UserServiceTest {
         );
 
         assertEquals("User not found with id: 999", exception.getMessage());
-        verify(userRepository, times(1)).findById(999L);
+        verify(userRepository, times(1)).findSummaryById(999L);
+    }
+
+    @Test
+    void getUserVersionById_ConcurrentCalls_ShouldReadVersionOnce() throws Exception {
+        // Arrange
+        UserVersion version = new UserVersion(1L, LocalDateTime.now(), null);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.findVersionById(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(version);
+        });
+
+        // Act
+        CompletableFuture<UserVersion> leader = CompletableFuture.supplyAsync(() -> userService.getUserVersionById(1L));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<UserVersion> follower = CompletableFuture.supplyAsync(() -> userService.getUserVersionById(1L));
+        while (coalescedCalls() < 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        // Assert
+        assertEquals(version, leader.get(5, TimeUnit.SECONDS));
+        assertEquals(version, follower.get(5, TimeUnit.SECONDS));
+        verify(userRepository, times(1)).findVersionById(1L);
     }
 
     @Test
     void getUserByUsername_WhenUserExists_ShouldReturnUser() {
         // Arrange
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(userRepository.findSummaryByUsernameNormalized("testuser")).thenReturn(Optional.of(summaryOf(user)));
 
         // Act
-        UserResponse result = userService.getUserByUsername("testuser");
+        UserResponse result = userService.getUserByUsername("TestUser");
 
         // Assert
         assertNotNull(result);
         assertEquals("testuser", result.getUsername());
 
-        verify(userRepository, times(1)).findByUsername("testuser");
+        verify(userRepository, times(1)).findSummaryByUsernameNormalized("testuser");
     }
 
     @Test
-    void getAllUsers_ShouldReturnAllUsers() {
+    void getAllUsers_ShouldReturnPageWithNextCursor_WhenMoreRowsExist() {
         // Arrange
         User anotherUser = User.builder()
                 .id(2L)
                 .username("anotheruser")
                 .email("another@example.com")
                 .build();
+        User thirdUser = User.builder()
+                .id(3L)
+                .username("thirduser")
+                .email("third@example.com")
+                .build();
 
-        when(userRepository.findAll()).thenReturn(Arrays.asList(user, anotherUser));
+        when(userRepository.findPageAfterId(eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(summaryOf(user), summaryOf(anotherUser), summaryOf(thirdUser)));
 
         // Act
-        List<UserResponse> result = userService.getAllUsers();
+        CursorPage<UserResponse> result = userService.getAllUsers(null, 2, UserSortField.ID);
 
         // Assert
         assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals("testuser", result.get(0).getUsername());
-        assertEquals("anotheruser", result.get(1).getUsername());
+        assertEquals(2, result.getItems().size());
+        assertEquals("testuser", result.getItems().get(0).getUsername());
+        assertEquals("anotheruser", result.getItems().get(1).getUsername());
+        assertTrue(result.isHasMore());
+        assertNotNull(result.getNextCursor());
+
+        verify(userRepository, times(1)).findPageAfterId(eq(0L), eq(PageRequest.of(0, 3)));
+    }
+
+    @Test
+    void getAllUsers_ShouldContinueAfterCursor() {
+        // Arrange
+        when(userRepository.findPageAfterId(eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(summaryOf(user), summaryOf(user)));
+        String cursor = userService.getAllUsers(null, 1, UserSortField.ID).getNextCursor();
+
+        when(userRepository.findPageAfterId(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        // Act
+        CursorPage<UserResponse> result = userService.getAllUsers(cursor, 1, UserSortField.ID);
 
-        verify(userRepository, times(1)).findAll();
+        // Assert
+        assertTrue(result.getItems().isEmpty());
+        assertFalse(result.isHasMore());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getAllUsers_ShouldRejectCursorOfAnotherSortField() {
+        // Arrange
+        when(userRepository.findPageAfterId(eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(summaryOf(user), summaryOf(user)));
+        String cursor = userService.getAllUsers(null, 1, UserSortField.ID).getNextCursor();
+
+        // Act & Assert
+        assertThrows(BadRequestException.class,
+                () -> userService.getAllUsers(cursor, 1, UserSortField.CREATED_AT));
     }
 
     @Test
@@ -187,58 +346,77 @@ class UserServiceTest {
     }
 
     @Test
-    void deleteUser_WhenUserExists_ShouldDeleteUser() {
+    void updateUser_WhenUserIsDisabled_ShouldBumpSecurityVersion() {
         // Arrange
-        when(userRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(userRepository).deleteById(1L);
+        userDto.setEnabled(false);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenReturn(user);
 
         // Act
-        userService.deleteUser(1L);
+        userService.updateUser(1L, userDto);
 
         // Assert
-        verify(userRepository, times(1)).existsById(1L);
-        verify(userRepository, times(1)).deleteById(1L);
+        assertEquals(1L, user.getSecurityVersion());
     }
 
     @Test
-    void deleteUser_WhenUserDoesNotExist_ShouldThrowException() {
+    void updateUser_WhenEmailChanges_ShouldBumpSecurityVersion() {
         // Arrange
-        when(userRepository.existsById(999L)).thenReturn(false);
+        userDto.setEmail("renamed@example.com");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenReturn(user);
 
-        // Act & Assert
-        ResourceNotFoundException exception = assertThrows(
-                ResourceNotFoundException.class,
-                () -> userService.deleteUser(999L)
-        );
+        // Act
+        userService.updateUser(1L, userDto);
 
-        assertEquals("User not found with id: 999", exception.getMessage());
-        verify(userRepository, times(1)).existsById(999L);
-        verify(userRepository, never()).deleteById(any());
+        // Assert
+        assertEquals(1L, user.getSecurityVersion());
     }
 
     @Test
-    void existsByUsername_ShouldReturnTrue_WhenUsernameExists() {
+    void deleteUser_WhenUserExists_ShouldDeleteUser() {
         // Arrange
-        when(userRepository.existsByUsername("testuser")).thenReturn(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        doNothing().when(userRepository).delete(user);
 
         // Act
-        boolean result = userService.existsByUsername("testuser");
+        userService.deleteUser(1L);
 
         // Assert
-        assertTrue(result);
-        verify(userRepository, times(1)).existsByUsername("testuser");
+        verify(userRepository, times(1)).findById(1L);
+        verify(userRepository, times(1)).delete(user);
     }
 
     @Test
-    void existsByEmail_ShouldReturnTrue_WhenEmailExists() {
+    void deleteUser_WhenUserDoesNotExist_ShouldThrowException() {
         // Arrange
-        when(userRepository.existsByEmail("test@example.com")).thenReturn(true);
+        when(userRepository.findById(999L)).thenReturn(Optional.empty());
 
-        // Act
-        boolean result = userService.existsByEmail("test@example.com");
+        // Act & Assert
+        ResourceNotFoundException exception = assertThrows(
+                ResourceNotFoundException.class,
+                () -> userService.deleteUser(999L)
+        );
 
-        // Assert
-        assertTrue(result);
-        verify(userRepository, times(1)).existsByEmail("test@example.com");
+        assertEquals("User not found with id: 999", exception.getMessage());
+        verify(userRepository, times(1)).findById(999L);
+        verify(userRepository, never()).delete(any());
+    }
+
+    private double coalescedCalls() {
+        return meterRegistry.find("singleflight.calls").tag("outcome", "coalesced").counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private static DataIntegrityViolationException duplicate(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("duplicate key", null, constraintName));
+    }
+
+    private static UserSummary summaryOf(User user) {
+        return new UserSummary(user.getId(), user.getUsername(), user.getEmail(), user.getFullName(),
+                user.getRoleMask(), user.isEnabled(), user.getCreatedAt(), user.getUpdatedAt(),
+                user.getLastLoginAt(), user.getLoginCount());
     }
-}
\ No newline at end of file
+}